@@ -0,0 +1,28 @@
+package wiki.minecraft.heywiki;
+
+import wiki.minecraft.heywiki.resource.WikiFamilyManager;
+import wiki.minecraft.heywiki.wiki.PageHistory;
+
+import java.util.function.Supplier;
+
+/**
+ * Creates {@link HeyWikiClient} instances for benchmarks, which run without a game client.
+ */
+public final class HeadlessClient {
+    private HeadlessClient() {
+    }
+
+    /**
+     * Creates the mod instance without registering anything with the game.
+     *
+     * @param config        Supplies the config.
+     * @param familyManager Supplies the wiki family manager.
+     * @param pageHistory   Supplies the page history.
+     * @return The mod instance.
+     */
+    public static HeyWikiClient create(Supplier<HeyWikiConfig> config,
+                                       Supplier<? extends WikiFamilyManager> familyManager,
+                                       Supplier<PageHistory> pageHistory) {
+        return new HeyWikiClient(config, familyManager, pageHistory);
+    }
+}
@@ -0,0 +1,165 @@
+package wiki.minecraft.heywiki.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.mojang.serialization.JsonOps;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.util.Identifier;
+import wiki.minecraft.heywiki.HeadlessClient;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.HeyWikiConfig;
+import wiki.minecraft.heywiki.resource.WikiFamilyManager;
+import wiki.minecraft.heywiki.wiki.PageHistory;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Sets up a headless {@link HeyWikiClient} with synthetic wiki families for benchmarks.
+ *
+ * <p>The mod instance is created with {@link HeadlessClient}, which does not register key bindings, events and reload
+ * listeners that require a running game client.
+ */
+public final class BenchmarkEnvironment {
+    /**
+     * Real wiki language codes, used before falling back to generated ones.
+     */
+    private static final List<String> LANGUAGES = List.of("en", "de", "es", "fr", "ja", "ko", "pt", "ru", "zh", "it",
+                                                          "nl", "pl", "uk", "cs", "th", "tr", "hu", "sv", "da", "fi",
+                                                          "id", "vi", "ar", "he");
+    /**
+     * A page history file that does not exist, so every run starts with an empty history.
+     */
+    private static final Path HISTORY = Path.of("build", "jmh", "heywiki-history.json");
+    private static boolean bootstrapped = false;
+
+    private BenchmarkEnvironment() {
+    }
+
+    /**
+     * Sets up the environment, replacing any families loaded by a previous call.
+     *
+     * <p>The first family covers the {@code minecraft} namespace, the others cover {@code ns1}, {@code ns2}, etc.
+     * Every family has the same number of languages, the first one being the main language.
+     *
+     * @param families  The number of wiki families.
+     * @param languages The number of languages per family.
+     * @return The mod instance.
+     */
+    public static HeyWikiClient setUp(int families, int languages) {
+        return setUp(families, languages, (family, language) -> URI.create(
+                "https://" + language + ".family" + family + ".example"));
+    }
+
+    /**
+     * Sets up the environment with every wiki hosted under a path of the given server.
+     *
+     * @param families  The number of wiki families.
+     * @param languages The number of languages per family.
+     * @param server    The base URI of the server, e.g. a {@link wiki.minecraft.heywiki.benchmark.stub.StubWikiServer}.
+     * @return The mod instance.
+     * @see #setUp(int, int)
+     */
+    public static HeyWikiClient setUp(int families, int languages, URI server) {
+        return setUp(families, languages, (family, language) -> server.resolve("/family" + family + "/" + language));
+    }
+
+    private static synchronized HeyWikiClient setUp(int families, int languages,
+                                                    BiFunction<Integer, String, URI> hosts) {
+        if (!bootstrapped) {
+            SharedConstants.createGameVersion();
+            Bootstrap.initialize();
+            bootstrapped = true;
+        }
+
+        HeyWikiClient mod = HeyWikiClient.getInstance();
+        if (mod == null) {
+            mod = HeadlessClient.create(() -> HeyWikiConfig.CODEC.parse(JsonOps.INSTANCE, config()).getOrThrow(),
+                                        BenchmarkFamilyManager::new,
+                                        () -> PageHistory.load(HISTORY));
+        }
+
+        ((BenchmarkFamilyManager) mod.familyManager()).load(createFamilies(families, languages, hosts));
+        return mod;
+    }
+
+    /**
+     * Gets the wiki language code for the given index.
+     *
+     * @param index The index of the language.
+     * @return The language code.
+     */
+    public static String language(int index) {
+        return index < LANGUAGES.size() ? LANGUAGES.get(index) : "l" + index;
+    }
+
+    /**
+     * Gets the namespace of the family at the given index.
+     *
+     * @param index The index of the family.
+     * @return The namespace.
+     */
+    public static String namespace(int index) {
+        return index == 0 ? "minecraft" : "ns" + index;
+    }
+
+    private static Map<Identifier, JsonElement> createFamilies(int families, int languages,
+                                                               BiFunction<Integer, String, URI> hosts) {
+        Map<Identifier, JsonElement> prepared = new HashMap<>();
+        for (int i = 0; i < families; i++) {
+            JsonArray namespaces = new JsonArray();
+            namespaces.add(namespace(i));
+
+            JsonArray wikis = new JsonArray();
+            for (int j = 0; j < languages; j++) {
+                String code = language(j);
+                String host = hosts.apply(i, code).toString();
+
+                JsonObject language = new JsonObject();
+                language.addProperty("wiki_language", code);
+                language.addProperty("main", j == 0);
+                language.addProperty("default", code + "_" + code);
+                language.addProperty("regex", "^" + code + "_.*");
+                if (j % 2 == 1) language.addProperty("exclude", "^" + code + "_xx$");
+
+                JsonObject title = new JsonObject();
+                title.addProperty("letter", i % 2 == 0 ? "ignore" : "lower");
+                title.addProperty("space", i % 2 == 0 ? "underscore" : "dash");
+
+                JsonObject wiki = new JsonObject();
+                wiki.addProperty("article_url", host + "/w/%s");
+                wiki.addProperty("mw_api_url", host + "/api.php");
+                wiki.addProperty("search_url", host + "/index.php?search=%s");
+                wiki.addProperty("excerpt", "text_extracts");
+                wiki.add("language", language);
+                wiki.add("title", title);
+                wikis.add(wiki);
+            }
+
+            JsonObject family = new JsonObject();
+            family.add("namespace", namespaces);
+            family.add("wikis", wikis);
+            prepared.put(Identifier.of("heywiki_benchmark", namespace(i)), family);
+        }
+
+        return prepared;
+    }
+
+    private static JsonObject config() {
+        JsonObject config = new JsonObject();
+        config.addProperty("language", "en");
+        return config;
+    }
+
+    private static class BenchmarkFamilyManager extends WikiFamilyManager {
+        void load(Map<Identifier, JsonElement> prepared) {
+            this.apply(prepared, null, null);
+        }
+    }
+}
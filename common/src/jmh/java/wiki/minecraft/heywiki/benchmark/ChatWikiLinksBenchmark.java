@@ -0,0 +1,63 @@
+package wiki.minecraft.heywiki.benchmark;
+
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import org.openjdk.jmh.annotations.*;
+import wiki.minecraft.heywiki.ChatWikiLinks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks rewriting wiki links in received chat messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatWikiLinksBenchmark {
+    @Param({"4"})
+    public int families;
+
+    @Param({"8"})
+    public int languages;
+
+    /**
+     * The number of wiki links in the message.
+     */
+    @Param({"0", "1", "8"})
+    public int links;
+
+    /**
+     * The number of differently styled siblings the message is split into.
+     */
+    @Param({"1", "4"})
+    public int siblings;
+
+    private Text message;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.setUp(families, languages);
+
+        MutableText message = Text.literal("<Player> ");
+        for (int i = 0; i < siblings; i++) {
+            StringBuilder builder = new StringBuilder("Have you seen this? ");
+            for (int j = i; j < links; j += siblings) {
+                builder.append(j % 2 == 0 ? "[[Grass Block]]" : "[[de:Redstone-Verstärker]]")
+                       .append(" is described there. ");
+            }
+            message.append(Text.literal(builder.toString())
+                               .setStyle(Style.EMPTY.withColor(Formatting.byColorIndex(i % 16))));
+        }
+        this.message = message;
+    }
+
+    @Benchmark
+    public Object onClientChatReceived() {
+        return ChatWikiLinks.onClientChatReceived(null, message);
+    }
+}
@@ -0,0 +1,89 @@
+package wiki.minecraft.heywiki.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.*;
+import wiki.minecraft.heywiki.command.suggestion.PageNameSuggestionProvider;
+import wiki.minecraft.heywiki.gui.screen.WikiSearchScreen;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing search suggestion responses of the MediaWiki API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuggestionParsingBenchmark {
+    /**
+     * The number of results in the response.
+     */
+    @Param({"10", "50"})
+    public int results;
+
+    private String prefixSearchResponse;
+    private String openSearchResponse;
+
+    @Setup
+    public void setUp() {
+        JsonArray pages = new JsonArray();
+        JsonArray redirects = new JsonArray();
+        JsonArray titles = new JsonArray();
+        for (int i = 0; i < results; i++) {
+            String title = "Redstone Component " + i;
+
+            JsonObject page = new JsonObject();
+            page.addProperty("pageid", 1000 + i);
+            page.addProperty("ns", 0);
+            page.addProperty("title", title);
+            page.addProperty("index", i + 1);
+            if (i % 2 == 0) {
+                JsonObject thumbnail = new JsonObject();
+                thumbnail.addProperty("source", "https://wiki.example/images/thumb/" + i + ".png/80px-" + i + ".png");
+                thumbnail.addProperty("width", 80);
+                thumbnail.addProperty("height", 80);
+                page.add("thumbnail", thumbnail);
+            }
+            pages.add(page);
+
+            if (i % 3 == 0) {
+                JsonObject redirect = new JsonObject();
+                redirect.addProperty("index", i + 1);
+                redirect.addProperty("from", "Redstone Part " + i);
+                redirect.addProperty("to", title);
+                redirects.add(redirect);
+            }
+
+            titles.add(title);
+        }
+
+        JsonObject query = new JsonObject();
+        query.add("redirects", redirects);
+        query.add("pages", pages);
+        JsonObject root = new JsonObject();
+        root.addProperty("batchcomplete", true);
+        root.add("query", query);
+        prefixSearchResponse = root.toString();
+
+        JsonArray openSearch = new JsonArray();
+        openSearch.add("Redstone");
+        openSearch.add(titles);
+        openSearch.add(new JsonArray());
+        openSearch.add(new JsonArray());
+        openSearchResponse = openSearch.toString();
+    }
+
+    @Benchmark
+    public Object prefixSearch() {
+        return WikiSearchScreen.Suggestion.fromPrefixSearch(prefixSearchResponse);
+    }
+
+    @Benchmark
+    public Object openSearch() throws IOException {
+        return PageNameSuggestionProvider.parseOpenSearch(openSearchResponse);
+    }
+}
@@ -0,0 +1,48 @@
+package wiki.minecraft.heywiki.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import wiki.minecraft.heywiki.util.HttpUtil;
+import wiki.minecraft.heywiki.wiki.TitleFormat;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks formatting and percent-encoding page titles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TitleEncodingBenchmark {
+    @Param({"Stone", "Block of Redstone (Java Edition)", "レッドストーン・コンパレーター", "Œuvre d'art/Ébauche"})
+    public String title;
+
+    @Param({"ignore:ignore", "lower:underscore", "upper:dash"})
+    public String format;
+
+    private TitleFormat titleFormat;
+
+    @Setup
+    public void setUp() {
+        String[] split = format.split(":");
+        titleFormat = new TitleFormat(TitleFormat.Letter.valueOf(split[0].toUpperCase()),
+                                      TitleFormat.Space.valueOf(split[1].toUpperCase()));
+    }
+
+    @Benchmark
+    public String formatTitle() {
+        return titleFormat.formatTitle(title);
+    }
+
+    @Benchmark
+    public String encodeUrl() {
+        return HttpUtil.encodeUrl(title);
+    }
+
+    @Benchmark
+    public String formatAndEncode() {
+        return HttpUtil.encodeUrl(titleFormat.formatTitle(title));
+    }
+}
@@ -0,0 +1,77 @@
+package wiki.minecraft.heywiki.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import wiki.minecraft.heywiki.resource.WikiFamilyManager;
+import wiki.minecraft.heywiki.wiki.WikiFamily;
+import wiki.minecraft.heywiki.wiki.WikiLanguage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks looking up wiki families and matching languages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WikiFamilyBenchmark {
+    @Param({"4", "32"})
+    public int families;
+
+    @Param({"8", "48"})
+    public int languages;
+
+    private WikiFamilyManager familyManager;
+    private WikiFamily lastFamily;
+    private WikiLanguage language;
+    private WikiLanguage excludingLanguage;
+    private String lastNamespace;
+    private String lastGameLanguage;
+
+    @Setup
+    public void setUp() {
+        familyManager = BenchmarkEnvironment.setUp(families, languages).familyManager();
+        lastNamespace = BenchmarkEnvironment.namespace(families - 1);
+        lastFamily = familyManager.getFamilyByNamespace(lastNamespace);
+        language = lastFamily.wikis().get(0).language();
+        excludingLanguage = lastFamily.wikis().get(1).language();
+
+        String code = BenchmarkEnvironment.language(languages - 1);
+        lastGameLanguage = code + "_" + code;
+    }
+
+    @Benchmark
+    public WikiFamily getFamilyByNamespace() {
+        return familyManager.getFamilyByNamespace(lastNamespace);
+    }
+
+    @Benchmark
+    public Object getAvailableNamespaces() {
+        return familyManager.getAvailableNamespaces();
+    }
+
+    @Benchmark
+    public Object getActiveWiki() {
+        return familyManager.activeWikis().get(lastNamespace);
+    }
+
+    @Benchmark
+    public Object resolveActiveWikis() {
+        return familyManager.resolveActiveWikis();
+    }
+
+    @Benchmark
+    public Object getLanguageWikiByGameLanguage() {
+        return lastFamily.getLanguageWikiByGameLanguage(lastGameLanguage);
+    }
+
+    @Benchmark
+    public void matchLanguage(Blackhole blackhole) {
+        blackhole.consume(language.match("en_us"));
+        blackhole.consume(language.match("zh_cn"));
+        blackhole.consume(excludingLanguage.match("de_de"));
+    }
+}
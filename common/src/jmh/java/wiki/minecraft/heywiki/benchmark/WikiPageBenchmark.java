@@ -0,0 +1,72 @@
+package wiki.minecraft.heywiki.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import wiki.minecraft.heywiki.wiki.WikiPage;
+
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks resolving wikitext links to pages and building their URLs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WikiPageBenchmark {
+    @Param({"4", "32"})
+    public int families;
+
+    @Param({"8", "48"})
+    public int languages;
+
+    private String[] links;
+    private WikiPage[] pages;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.setUp(families, languages);
+
+        String lastLanguage = BenchmarkEnvironment.language(languages - 1);
+        String lastNamespace = BenchmarkEnvironment.namespace(families - 1);
+        links = new String[]{
+                "Grass Block",
+                "en:Grass Block",
+                lastLanguage + ":Grass Block",
+                "minecraft:" + lastLanguage + ":Grass Block",
+                lastNamespace + ":Custom Page",
+                lastNamespace + ":" + lastLanguage + ":Custom Page",
+                "Minecraft Legends:Grass Block",
+                "Ender Dragon/Ö Ä Ü (Java Edition)"
+        };
+
+        pages = new WikiPage[links.length];
+        for (int i = 0; i < links.length; i++) {
+            pages[i] = WikiPage.fromWikitextLink(links[i]);
+        }
+    }
+
+    @Benchmark
+    public void fromWikitextLink(Blackhole blackhole) {
+        for (String link : links) {
+            blackhole.consume(WikiPage.fromWikitextLink(link));
+        }
+    }
+
+    @Benchmark
+    public void getUrl(Blackhole blackhole) {
+        for (WikiPage page : pages) {
+            blackhole.consume(page.getUrl());
+        }
+    }
+
+    @Benchmark
+    public void getUri(Blackhole blackhole) throws URISyntaxException {
+        for (WikiPage page : pages) {
+            blackhole.consume(page.getUri());
+        }
+    }
+}
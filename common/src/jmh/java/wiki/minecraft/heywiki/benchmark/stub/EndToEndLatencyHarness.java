@@ -0,0 +1,227 @@
+package wiki.minecraft.heywiki.benchmark.stub;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.benchmark.BenchmarkEnvironment;
+import wiki.minecraft.heywiki.command.suggestion.PageNameSuggestionProvider;
+import wiki.minecraft.heywiki.gui.screen.WikiSearchScreen;
+import wiki.minecraft.heywiki.util.HttpUtil;
+import wiki.minecraft.heywiki.util.ImageLoader;
+import wiki.minecraft.heywiki.wiki.PageExcerpt;
+import wiki.minecraft.heywiki.wiki.WikiIndividual;
+import wiki.minecraft.heywiki.wiki.WikiPage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SequencedSet;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Drives the suggestion and preview pipelines against a {@link StubWikiServer} and reports their latency.
+ *
+ * <p>Every sample uses a new search term or page, so the debouncer, excerpt and file caches are always cold.
+ * The measured phases are:
+ * <ul>
+ *     <li>{@code command_suggestions}: {@link PageNameSuggestionProvider} until suggestions are available,
+ *     including its debounce delay.</li>
+ *     <li>{@code search_suggestions}: the search screen's {@code prefixsearch} request until it is parsed.</li>
+ *     <li>{@code search_first_thumbnail}: as above, until the first suggestion thumbnail is downloaded.</li>
+ *     <li>{@code preview}: {@link PageExcerpt#fromPage(WikiPage)} until the excerpt and its image are available.</li>
+ * </ul>
+ *
+ * <p>Options are passed as {@code --name value} pairs, for example
+ * {@code --samples 200 --latency 80 --jitter 40 --error-rate 0.02 --output build/reports/e2e.json}.
+ * Pass {@code --recording <file>} to replay recorded responses, together with {@code --record-from <api url>} to
+ * record missing responses from a live wiki first.
+ */
+public class EndToEndLatencyHarness {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int samples = Integer.parseInt(options.getOrDefault("samples", "100"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        Optional<Path> recordingPath = Optional.ofNullable(options.get("recording")).map(Path::of);
+
+        // Keep downloaded thumbnails away from the real cache, and start with an empty one.
+        System.setProperty("java.io.tmpdir", Files.createTempDirectory("heywiki-e2e").toString());
+
+        Recording recording = recordingPath.isPresent() ? Recording.load(recordingPath.get()) : new Recording();
+        var serverOptions = new StubWikiServer.Options(
+                Duration.ofMillis(Long.parseLong(options.getOrDefault("latency", "50"))),
+                Duration.ofMillis(Long.parseLong(options.getOrDefault("jitter", "25"))),
+                Double.parseDouble(options.getOrDefault("error-rate", "0")),
+                Long.parseLong(options.getOrDefault("seed", "0")),
+                Optional.ofNullable(options.get("record-from")));
+
+        Map<String, LatencyRecorder> results = new LinkedHashMap<>();
+        try (StubWikiServer server = new StubWikiServer(serverOptions, recording)) {
+            var mod = BenchmarkEnvironment.setUp(1, 1, server.baseUri());
+            WikiIndividual wiki = mod.familyManager().activeWikis().get("minecraft");
+            URI apiUri = URI.create(wiki.mwApiUrl().orElseThrow());
+            String prefix = options.getOrDefault("term", "Stub");
+
+            for (int i = -warmup; i < samples; i++) {
+                boolean measured = i >= 0;
+                String term = prefix + " " + (i + warmup);
+
+                measure(results, "command_suggestions", measured, () -> commandSuggestions(apiUri, term));
+                measureSearch(results, measured, apiUri, term);
+                measure(results, "preview", measured, () -> preview(new WikiPage(term, wiki)));
+            }
+
+            if (recordingPath.isPresent() && serverOptions.upstreamApi().isPresent()) {
+                recording.save(recordingPath.get());
+            }
+
+            JsonObject report = new JsonObject();
+            report.addProperty("samples", samples);
+            report.addProperty("latency_ms", serverOptions.latency().toMillis());
+            report.addProperty("jitter_ms", serverOptions.jitter().toMillis());
+            report.addProperty("error_rate", serverOptions.errorRate());
+            report.addProperty("stub_requests", server.requests());
+            report.addProperty("stub_injected_errors", server.injectedErrors());
+            JsonObject phases = new JsonObject();
+            results.forEach((name, recorder) -> phases.add(name, recorder.toJson()));
+            report.add("phases", phases);
+
+            System.out.printf("%-24s %8s %8s %8s %8s %8s%n", "phase", "ok", "failed", "p50 ms", "p99 ms", "max ms");
+            results.forEach((name, recorder) -> System.out.printf(
+                    "%-24s %8d %8d %8.1f %8.1f %8.1f%n", name, recorder.count(), recorder.failures(),
+                    recorder.percentileMillis(0.5), recorder.percentileMillis(0.99), recorder.percentileMillis(1)));
+
+            if (options.containsKey("output")) {
+                Path output = Path.of(options.get("output"));
+                if (output.getParent() != null) Files.createDirectories(output.getParent());
+                Files.writeString(output, new GsonBuilder().setPrettyPrinting().create().toJson(report));
+            }
+        }
+
+        System.exit(0);
+    }
+
+    private static boolean commandSuggestions(URI apiUri, String term) {
+        Suggestions suggestions = new PageNameSuggestionProvider(() -> apiUri)
+                .getSuggestions(null, new SuggestionsBuilder(term, 0))
+                .join();
+        return !suggestions.isEmpty();
+    }
+
+    private static void measureSearch(Map<String, LatencyRecorder> results, boolean measured, URI apiUri,
+                                      String term) {
+        long start = System.nanoTime();
+        SequencedSet<WikiSearchScreen.Suggestion> suggestions;
+        try {
+            suggestions = WikiSearchScreen.Suggestion.fromPrefixSearch(HttpUtil.request(
+                    HttpUtil.uriWithQuery(apiUri, String.format(WikiSearchScreen.SUGGESTION_URL, term))));
+        } catch (Exception e) {
+            suggestions = null;
+        }
+        long parsed = System.nanoTime();
+        record(results, "search_suggestions", measured, suggestions != null && !suggestions.isEmpty(),
+               parsed - start);
+        if (suggestions == null) return;
+
+        Optional<String> imageUrl = suggestions.stream().flatMap(s -> s.imageUrl().stream()).findFirst();
+        boolean ok = imageUrl.isPresent() && HeyWikiClient.getInstance().imageLoader()
+                                                         .load(imageUrl.get(), ImageLoader.Priority.VISIBLE)
+                                                         .join() != null;
+        record(results, "search_first_thumbnail", measured, ok, System.nanoTime() - start);
+    }
+
+    private static boolean preview(WikiPage page) {
+        PageExcerpt excerpt = PageExcerpt.fromPage(page).map(CompletableFuture::join).orElse(null);
+        if (excerpt == null) return false;
+        return excerpt.imageUrl() == null || HeyWikiClient.getInstance().imageLoader()
+                                                             .load(excerpt.imageUrl(), ImageLoader.Priority.HERO)
+                                                             .join() != null;
+    }
+
+    private static void measure(Map<String, LatencyRecorder> results, String phase, boolean measured,
+                                Phase action) {
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = action.run();
+        } catch (Exception e) {
+            ok = false;
+        }
+        record(results, phase, measured, ok, System.nanoTime() - start);
+    }
+
+    private static void record(Map<String, LatencyRecorder> results, String phase, boolean measured, boolean ok,
+                               long nanos) {
+        LatencyRecorder recorder = results.computeIfAbsent(phase, k -> new LatencyRecorder());
+        if (!measured) return;
+        if (ok) recorder.add(nanos);
+        else recorder.fail();
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Expected an option: " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    @FunctionalInterface
+    private interface Phase {
+        boolean run() throws Exception;
+    }
+
+    /**
+     * Collects latency samples of one phase.
+     */
+    private static class LatencyRecorder {
+        private long[] samples = new long[64];
+        private int count = 0;
+        private int failures = 0;
+
+        void add(long nanos) {
+            if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+            samples[count++] = nanos;
+        }
+
+        void fail() {
+            failures++;
+        }
+
+        int count() {
+            return count;
+        }
+
+        int failures() {
+            return failures;
+        }
+
+        double percentileMillis(double percentile) {
+            if (count == 0) return Double.NaN;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return sorted[Math.clamp(index, 0, count - 1)] / 1_000_000D;
+        }
+
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("ok", count);
+            json.addProperty("failed", failures);
+            json.addProperty("p50_ms", percentileMillis(0.5));
+            json.addProperty("p90_ms", percentileMillis(0.9));
+            json.addProperty("p99_ms", percentileMillis(0.99));
+            json.addProperty("max_ms", percentileMillis(1));
+            return json;
+        }
+    }
+}
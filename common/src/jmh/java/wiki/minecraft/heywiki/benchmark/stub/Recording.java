@@ -0,0 +1,111 @@
+package wiki.minecraft.heywiki.benchmark.stub;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recorded responses of a wiki, keyed by request path and query.
+ *
+ * <p>Absolute URLs in text responses are stored relative to the stub server, see {@link #STUB_PLACEHOLDER}, so
+ * that thumbnails referenced by a recorded response are also served from the recording.
+ */
+public class Recording {
+    /**
+     * Placeholder for the base URI of the stub server in recorded text responses.
+     */
+    public static final String STUB_PLACEHOLDER = "${stub}";
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private final Map<String, Response> responses = new ConcurrentHashMap<>();
+
+    /**
+     * Loads a recording from a file.
+     *
+     * @param path The path to the recording.
+     * @return The recording, or an empty recording if the file does not exist.
+     * @throws IOException If the file cannot be read.
+     */
+    public static Recording load(Path path) throws IOException {
+        Recording recording = new Recording();
+        if (!Files.exists(path)) return recording;
+
+        try (Reader reader = Files.newBufferedReader(path)) {
+            List<StoredResponse> stored = GSON.fromJson(reader, new TypeToken<List<StoredResponse>>() {}.getType());
+            for (StoredResponse response : stored) {
+                recording.responses.put(response.key, new Response(response.status, response.contentType,
+                                                                   Base64.getDecoder().decode(response.body)));
+            }
+        }
+
+        return recording;
+    }
+
+    /**
+     * Saves the recording to a file, sorted by key so that recordings diff well.
+     *
+     * @param path The path to save the recording to.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path path) throws IOException {
+        List<StoredResponse> stored = new TreeMap<>(responses)
+                .entrySet().stream()
+                .map(entry -> new StoredResponse(entry.getKey(), entry.getValue().status(),
+                                                 entry.getValue().contentType(),
+                                                 Base64.getEncoder().encodeToString(entry.getValue().body())))
+                .toList();
+
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            GSON.toJson(stored, writer);
+        }
+    }
+
+    /**
+     * Gets the recorded response for a request.
+     *
+     * @param key The path and query of the request.
+     * @return The response, if recorded.
+     */
+    public Optional<Response> get(String key) {
+        return Optional.ofNullable(responses.get(key));
+    }
+
+    /**
+     * Records a response.
+     *
+     * @param key      The path and query of the request.
+     * @param response The response.
+     */
+    public void put(String key, Response response) {
+        responses.put(key, response);
+    }
+
+    public int size() {
+        return responses.size();
+    }
+
+    /**
+     * A recorded response.
+     *
+     * @param status      The HTTP status code.
+     * @param contentType The content type.
+     * @param body        The response body.
+     */
+    public record Response(int status, String contentType, byte[] body) {
+    }
+
+    private record StoredResponse(String key, int status, String contentType, String body) {
+    }
+}
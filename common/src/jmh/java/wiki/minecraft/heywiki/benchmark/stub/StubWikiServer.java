@@ -0,0 +1,325 @@
+package wiki.minecraft.heywiki.benchmark.stub;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.mojang.logging.LogUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import wiki.minecraft.heywiki.util.HttpUtil;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-process MediaWiki API stub for benchmarks and tests that must not depend on live wikis.
+ *
+ * <p>Requests are answered from a {@link Recording} if possible. Missing responses are fetched from the upstream
+ * API and recorded if {@link Options#upstreamApi()} is set, or generated synthetically otherwise. Synthetic
+ * responses cover the {@code opensearch}, {@code prefixsearch} and {@code extracts} queries HeyWiki sends, and
+ * reference generated thumbnails served by the stub itself.
+ *
+ * <p>Every wiki is served under its own path, e.g. {@code /family0/en/api.php}, so that any number of wikis can
+ * share one server.
+ */
+public class StubWikiServer implements AutoCloseable {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int SUGGESTION_COUNT = 10;
+
+    private final Options options;
+    private final Recording recording;
+    private final Random random;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private byte[] thumbnail;
+
+    /**
+     * Creates and starts a stub server on an ephemeral loopback port.
+     *
+     * @param options   The latency, error and upstream options.
+     * @param recording The recording to replay and to record into.
+     * @throws IOException If the server cannot be bound.
+     */
+    public StubWikiServer(Options options, Recording recording) throws IOException {
+        this.options = options;
+        this.recording = recording;
+        this.random = new Random(options.seed());
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * Gets the base URI of the server, without a trailing slash.
+     *
+     * @return The base URI.
+     */
+    public URI baseUri() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort());
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long injectedErrors() {
+        return injectedErrors.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            simulateLatency();
+
+            if (random.nextDouble() < options.errorRate()) {
+                injectedErrors.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                send(exchange, new Recording.Response(503, "text/plain", "Injected error".getBytes()));
+                return;
+            }
+
+            String path = exchange.getRequestURI().getRawPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            String key = query == null ? path : path + "?" + query;
+
+            Optional<Recording.Response> response = recording.get(key);
+            if (response.isEmpty()) {
+                response = Optional.ofNullable(record(path, query));
+                response.ifPresent(r -> recording.put(key, r));
+            }
+            if (response.isEmpty()) {
+                response = Optional.ofNullable(synthesize(path, query));
+            }
+
+            send(exchange, response.orElseGet(() -> new Recording.Response(404, "text/plain", new byte[0])));
+        } catch (Exception e) {
+            LOGGER.error("Stub server failed to handle {}", exchange.getRequestURI(), e);
+        }
+    }
+
+    private void simulateLatency() {
+        long delay = options.latency().toNanos();
+        if (!options.jitter().isZero()) delay += (long) (random.nextDouble() * options.jitter().toNanos());
+
+        try {
+            Thread.sleep(Duration.ofNanos(delay));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(HttpExchange exchange, Recording.Response response) throws IOException {
+        byte[] body = response.body();
+        if (response.contentType().startsWith("application/json")) {
+            body = new String(body, StandardCharsets.UTF_8)
+                    .replace(Recording.STUB_PLACEHOLDER, baseUri().toString())
+                    .getBytes(StandardCharsets.UTF_8);
+
+            // Compress like MediaWiki does, so that the harness measures the bytes a real wiki would send.
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", response.contentType());
+        exchange.sendResponseHeaders(response.status(), body.length == 0 ? -1 : body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private @Nullable Recording.Response record(String path, @Nullable String query) {
+        URI upstream;
+        if (path.endsWith("/api.php") && options.upstreamApi().isPresent()) {
+            upstream = URI.create(options.upstreamApi().get() + (query == null ? "" : "?" + query));
+        } else if (path.startsWith("/upstream/") && options.upstreamApi().isPresent()) {
+            upstream = URI.create("https://" + path.substring("/upstream/".length()) +
+                                  (query == null ? "" : "?" + query));
+        } else {
+            return null;
+        }
+
+        try {
+            byte[] body = HttpUtil.request(upstream, InputStream::readAllBytes);
+            if (path.endsWith("/api.php")) {
+                // Make referenced files, e.g. thumbnails, go through the stub as well.
+                body = new String(body, StandardCharsets.UTF_8)
+                        .replace("https://", Recording.STUB_PLACEHOLDER + "/upstream/")
+                        .getBytes(StandardCharsets.UTF_8);
+                return new Recording.Response(200, JSON, body);
+            }
+            return new Recording.Response(200, "application/octet-stream", body);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to record {}", upstream, e);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private @Nullable Recording.Response synthesize(String path, @Nullable String query) {
+        if (path.startsWith("/thumb/")) {
+            return new Recording.Response(200, "image/png", thumbnail());
+        }
+        if (!path.endsWith("/api.php")) return null;
+
+        Map<String, String> params = parseQuery(query);
+        String action = params.getOrDefault("action", "");
+        JsonObject root = new JsonObject();
+
+        if (action.equals("opensearch")) {
+            String search = params.getOrDefault("search", "");
+            JsonArray titles = new JsonArray();
+            for (int i = 0; i < SUGGESTION_COUNT; i++) titles.add(search + " " + i);
+
+            JsonArray response = new JsonArray();
+            response.add(search);
+            response.add(titles);
+            response.add(new JsonArray());
+            response.add(new JsonArray());
+            return json(response.toString());
+        }
+
+        root.addProperty("batchcomplete", true);
+        if (!action.equals("query")) return json(root.toString());
+
+        JsonObject queryResult = new JsonObject();
+        JsonArray pages = new JsonArray();
+        if (params.containsKey("gpssearch")) {
+            String search = params.get("gpssearch");
+            JsonArray redirects = new JsonArray();
+            for (int i = 0; i < SUGGESTION_COUNT; i++) {
+                JsonObject page = page(search + " " + i, i + 1);
+                if (i % 2 == 0) page.add("thumbnail", thumbnailObject(search + " " + i, 80, 80));
+                pages.add(page);
+            }
+
+            JsonObject redirect = new JsonObject();
+            redirect.addProperty("index", 1);
+            redirect.addProperty("from", search);
+            redirect.addProperty("to", search + " 0");
+            redirects.add(redirect);
+            queryResult.add("redirects", redirects);
+        } else if (params.containsKey("titles")) {
+            String title = params.get("titles");
+            JsonObject page = page(title, 1);
+            page.addProperty("extract", title + " is a synthetic page served by the stub wiki. " +
+                                        "It exists so that previews can be measured without a live wiki.");
+            page.add("thumbnail", thumbnailObject(title, 640, 360));
+            pages.add(page);
+        }
+
+        queryResult.add("pages", pages);
+        root.add("query", queryResult);
+        return json(root.toString());
+    }
+
+    private static JsonObject page(String title, int index) {
+        JsonObject page = new JsonObject();
+        page.addProperty("pageid", Math.abs(title.hashCode()));
+        page.addProperty("ns", 0);
+        page.addProperty("title", title);
+        page.addProperty("index", index);
+        return page;
+    }
+
+    private static JsonObject thumbnailObject(String title, int width, int height) {
+        JsonObject thumbnail = new JsonObject();
+        thumbnail.addProperty("source", Recording.STUB_PLACEHOLDER + "/thumb/" +
+                                        HttpUtil.encodeUrl(title) + "-" + width + "px.png");
+        thumbnail.addProperty("width", width);
+        thumbnail.addProperty("height", height);
+        return thumbnail;
+    }
+
+    private static Recording.Response json(String body) {
+        return new Recording.Response(200, JSON, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private synchronized byte[] thumbnail() {
+        if (thumbnail == null) {
+            BufferedImage image = new BufferedImage(640, 360, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    image.setRGB(x, y, (x * 255 / image.getWidth()) << 16 | (y * 255 / image.getHeight()) << 8);
+                }
+            }
+
+            try {
+                ByteArrayOutputStream os = new ByteArrayOutputStream();
+                ImageIO.write(image, "png", os);
+                thumbnail = os.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return thumbnail;
+    }
+
+    private static Map<String, String> parseQuery(@Nullable String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) return params;
+
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            String name = index < 0 ? pair : pair.substring(0, index);
+            String value = index < 0 ? "" : pair.substring(index + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+
+        return params;
+    }
+
+    /**
+     * Options for a stub server.
+     *
+     * @param latency     The latency added to every response.
+     * @param jitter      The maximum random latency added on top of {@code latency}.
+     * @param errorRate   The probability of answering a request with HTTP 503.
+     * @param seed        The seed for latency jitter and error injection.
+     * @param upstreamApi The API to record missing responses from, or empty to synthesize them.
+     */
+    public record Options(Duration latency, Duration jitter, double errorRate, long seed,
+                          Optional<String> upstreamApi) {
+        public static final Options NONE = new Options(Duration.ZERO, Duration.ZERO, 0, 0, Optional.empty());
+    }
+}
@@ -6,9 +6,9 @@ import net.minecraft.text.ClickEvent;
 import net.minecraft.text.MutableText;
 import net.minecraft.text.Style;
 import net.minecraft.text.Text;
+import wiki.minecraft.heywiki.metrics.ChatLinksEvent;
 import wiki.minecraft.heywiki.wiki.WikiPage;
 
-import java.util.Objects;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -27,9 +27,12 @@ public class ChatWikiLinks {
      * @return The new message.
      */
     public static CompoundEventResult<Text> onClientChatReceived(MessageType.Parameters ignoredType, Text message) {
+        ChatLinksEvent event = new ChatLinksEvent();
+        event.begin();
         MutableText text = Text.empty();
 
         message.visit((style, string) -> {
+            event.length += string.length();
             // noinspection RegExpRedundantEscape
             Pattern wikiLinkPattern = Pattern.compile("\\[\\[(.*?)\\]\\]");
             Matcher matcher = wikiLinkPattern.matcher(string);
@@ -41,17 +44,18 @@ public class ChatWikiLinks {
                 String link = matcher.group(1);
                 text.append(Text.literal(link).setStyle(
                         style
-                                .withClickEvent(new ClickEvent(OPEN_URL, Objects.requireNonNull(
-                                        WikiPage.fromWikitextLink(link).getUri()).toString()))
+                                .withClickEvent(new ClickEvent(OPEN_URL, WikiPage.fromWikitextLink(link).getUrl()))
                                 .withUnderline(true)));
 
                 lastEnd = matcher.end() - 2;
+                event.links++;
             }
 
             text.append(Text.literal(string.substring(lastEnd)).setStyle(style));
 
             return Optional.empty();
         }, Style.EMPTY);
+        event.commit();
 
         return CompoundEventResult.interruptTrue(text);
     }
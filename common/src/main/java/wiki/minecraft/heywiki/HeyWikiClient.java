@@ -6,10 +6,14 @@ import dev.architectury.event.events.client.ClientChatEvent;
 import dev.architectury.event.events.client.ClientCommandRegistrationEvent;
 import dev.architectury.event.events.client.ClientCommandRegistrationEvent.ClientCommandSourceStack;
 import dev.architectury.event.events.client.ClientGuiEvent;
+import dev.architectury.event.events.client.ClientLifecycleEvent;
+import dev.architectury.event.events.client.ClientPlayerEvent;
 import dev.architectury.event.events.client.ClientTickEvent;
+import dev.architectury.platform.Platform;
 import dev.architectury.registry.ReloadListenerRegistry;
 import dev.architectury.registry.client.keymappings.KeyMappingRegistry;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.screen.TitleScreen;
 import net.minecraft.client.option.KeyBinding;
 import net.minecraft.client.util.InputUtil;
 import net.minecraft.command.CommandRegistryAccess;
@@ -18,10 +22,20 @@ import net.minecraft.util.Identifier;
 import org.lwjgl.glfw.GLFW;
 import wiki.minecraft.heywiki.command.*;
 import wiki.minecraft.heywiki.gui.screen.WikiSearchScreen;
+import wiki.minecraft.heywiki.metrics.MetricsRegistry;
 import wiki.minecraft.heywiki.resource.WikiFamilyManager;
+import wiki.minecraft.heywiki.resource.WikiLinkTableManager;
 import wiki.minecraft.heywiki.resource.WikiTranslationManager;
+import wiki.minecraft.heywiki.util.ConnectionWarmUp;
+import wiki.minecraft.heywiki.util.HeyWikiExecutors;
+import wiki.minecraft.heywiki.util.ImageLoader;
+import wiki.minecraft.heywiki.util.TextureUploadQueue;
+import wiki.minecraft.heywiki.wiki.PageHistory;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import static dev.architectury.event.events.client.ClientCommandRegistrationEvent.literal;
 
@@ -41,19 +55,24 @@ public class HeyWikiClient {
                                                                       GLFW.GLFW_KEY_B,
                                                                       "key.categories.heywiki"
     );
+    private static final Set<String> warnedFeatures = ConcurrentHashMap.newKeySet();
     private static HeyWikiClient INSTANCE;
 
+    private final MetricsRegistry metrics;
+    private final ImageLoader imageLoader;
+    private final TextureUploadQueue textureUploads;
+    private final PageHistory pageHistory;
     private final WikiFamilyManager familyManager;
     private final WikiTranslationManager translationManager;
+    private final WikiLinkTableManager linkTableManager;
     private final HeyWikiConfig config;
 
     /**
      * Initializes the Hey Wiki mod. Should be called at client setup.
      */
     public HeyWikiClient() {
-        INSTANCE = this;
-
-        this.config = HeyWikiConfig.load();
+        this(HeyWikiConfig::load, WikiFamilyManager::new,
+             () -> PageHistory.load(Platform.getGameFolder().resolve("heywiki").resolve("history.json")));
 
         KeyMappingRegistry.register(openWikiKey);
         KeyMappingRegistry.register(openWikiSearchKey);
@@ -63,21 +82,58 @@ public class HeyWikiClient {
         ClientChatEvent.RECEIVED.register(ChatWikiLinks::onClientChatReceived);
 
         ClientGuiEvent.DEBUG_TEXT_RIGHT.register(Raycast::onDebugTextRight);
+        ClientGuiEvent.RENDER_POST.register((screen, context, mouseX, mouseY, delta) -> this.textureUploads.drain());
+        ClientGuiEvent.INIT_POST.register((screen, access) -> {
+            if (screen instanceof TitleScreen) ConnectionWarmUp.warmUp();
+        });
 
         ClientTickEvent.CLIENT_POST.register(Raycast::onClientTickPost);
         ClientTickEvent.CLIENT_POST.register(WikiSearchScreen::onClientTickPost);
 
-        this.familyManager = new WikiFamilyManager();
-        this.translationManager = new WikiTranslationManager();
         ReloadListenerRegistry.register(ResourceType.CLIENT_RESOURCES, this.familyManager,
                                         Identifier.of("heywiki", "family"));
         ReloadListenerRegistry.register(ResourceType.CLIENT_RESOURCES, this.translationManager,
                                         Identifier.of("heywiki", "translation"),
                                         List.of(Identifier.of("heywiki", "family")));
+        ReloadListenerRegistry.register(ResourceType.CLIENT_RESOURCES, this.linkTableManager,
+                                        Identifier.of("heywiki", "link_table"),
+                                        List.of(Identifier.of("heywiki", "family"),
+                                                Identifier.of("heywiki", "translation")));
+
+        ClientPlayerEvent.CLIENT_PLAYER_JOIN.register(player -> this.linkTableManager.onClientPlayerJoin());
+        ClientPlayerEvent.CLIENT_PLAYER_JOIN.register(player -> ConnectionWarmUp.warmUp());
+        ClientPlayerEvent.CLIENT_PLAYER_QUIT.register(player -> this.linkTableManager.onClientPlayerQuit());
+
+        ClientLifecycleEvent.CLIENT_STOPPING.register(client -> this.pageHistory.save());
+        ClientLifecycleEvent.CLIENT_STOPPING.register(client -> HeyWikiExecutors.shutdown());
+    }
+
+    /**
+     * Creates the mod without registering key bindings, events or reload listeners, e.g. for benchmarks.
+     *
+     * <p>The dependencies are supplied after the instance is set, since they look it up when their classes load.
+     *
+     * @param config        Supplies the config.
+     * @param familyManager Supplies the wiki family manager.
+     * @param pageHistory   Supplies the page history.
+     */
+    HeyWikiClient(Supplier<HeyWikiConfig> config, Supplier<? extends WikiFamilyManager> familyManager,
+                  Supplier<PageHistory> pageHistory) {
+        INSTANCE = this;
+
+        this.metrics = new MetricsRegistry();
+        this.imageLoader = new ImageLoader(this.metrics, 8, 4);
+        this.textureUploads = new TextureUploadQueue(this.metrics);
+        this.config = config.get();
+        this.pageHistory = pageHistory.get();
+        this.familyManager = familyManager.get();
+        this.translationManager = new WikiTranslationManager();
+        this.linkTableManager = new WikiLinkTableManager();
     }
 
     private static void registerCommands(CommandDispatcher<ClientCommandSourceStack> dispatcher,
                                          CommandRegistryAccess registryAccess) {
+        HeyWikiCommand.register(dispatcher);
         ImFeelingLuckyCommand.register(dispatcher);
         WhatBiomeCommand.register(dispatcher);
         var whatCommandCommand = WhatCommandCommand.register(dispatcher);
@@ -97,16 +153,34 @@ public class HeyWikiClient {
     }
 
     /**
-     * Logs a warning that a feature is experimental.
+     * Logs a warning that a feature is experimental. The warning is only logged once per feature and session.
      *
      * @param feature The name of the experimental feature.
      */
     public static void experimentalWarning(String feature) {
+        if (!warnedFeatures.add(feature)) return;
+
         LogUtils.getLogger()
                 .warn("{} is an experimental feature. It is subject to breaking changes in future minor or patch releases.",
                       feature);
     }
 
+    public MetricsRegistry metrics() {
+        return metrics;
+    }
+
+    public ImageLoader imageLoader() {
+        return imageLoader;
+    }
+
+    public TextureUploadQueue textureUploads() {
+        return textureUploads;
+    }
+
+    public PageHistory pageHistory() {
+        return pageHistory;
+    }
+
     public WikiFamilyManager familyManager() {
         return familyManager;
     }
@@ -115,6 +189,10 @@ public class HeyWikiClient {
         return translationManager;
     }
 
+    public WikiLinkTableManager linkTableManager() {
+        return linkTableManager;
+    }
+
     public HeyWikiConfig config() {
         return config;
     }
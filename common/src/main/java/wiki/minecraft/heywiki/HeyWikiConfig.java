@@ -74,7 +74,16 @@ public class HeyWikiConfig {
                                                 .forGetter(HeyWikiConfig::zhVariant),
                                     Identifier.CODEC.fieldOf("searchDefaultWikiFamily")
                                                     .orElse(Identifier.of("heywiki", "minecraft"))
-                                                    .forGetter(HeyWikiConfig::searchDefaultWikiFamily)
+                                                    .forGetter(HeyWikiConfig::searchDefaultWikiFamily),
+                                    Codec.BOOL.fieldOf("precomputeLinkTable")
+                                              .orElse(false)
+                                              .forGetter(HeyWikiConfig::precomputeLinkTable),
+                                    Codec.BOOL.fieldOf("warmUpConnections")
+                                              .orElse(true)
+                                              .forGetter(HeyWikiConfig::warmUpConnections),
+                                    Codec.BOOL.fieldOf("searchAllWikis")
+                                              .orElse(false)
+                                              .forGetter(HeyWikiConfig::searchAllWikis)
                                   )
                             .apply(instance, HeyWikiConfig::new));
 
@@ -145,9 +154,42 @@ public class HeyWikiConfig {
 
     private Identifier searchDefaultWikiFamily;
 
+    /**
+     * Whether a table of wiki links for every registry entry should be built at resource reload.
+     */
+    public boolean precomputeLinkTable() {
+        return precomputeLinkTable;
+    }
+
+    private boolean precomputeLinkTable;
+
+    /**
+     * Whether connections to the active wikis should be opened ahead of time, when joining a world or on the title
+     * screen.
+     */
+    public boolean warmUpConnections() {
+        return warmUpConnections;
+    }
+
+    private boolean warmUpConnections;
+
+    /**
+     * Whether the search wiki screen searches all wikis at once instead of the default wiki family.
+     */
+    public boolean searchAllWikis() {
+        return searchAllWikis;
+    }
+
+    public void setSearchAllWikis(boolean searchAllWikis) {
+        this.searchAllWikis = searchAllWikis;
+    }
+
+    private boolean searchAllWikis;
+
     private HeyWikiConfig(boolean requiresConfirmation, boolean requiresConfirmationCommand, double raycastReach,
                           boolean raycastAllowFluid, String language, String zhVariant,
-                          Identifier searchDefaultWikiFamily) {
+                          Identifier searchDefaultWikiFamily, boolean precomputeLinkTable,
+                          boolean warmUpConnections, boolean searchAllWikis) {
         this.requiresConfirmation = requiresConfirmation;
         this.requiresConfirmationCommand = requiresConfirmationCommand;
         this.raycastReach = raycastReach;
@@ -155,6 +197,9 @@ public class HeyWikiConfig {
         this.language = language;
         this.zhVariant = zhVariant;
         this.searchDefaultWikiFamily = searchDefaultWikiFamily;
+        this.precomputeLinkTable = precomputeLinkTable;
+        this.warmUpConnections = warmUpConnections;
+        this.searchAllWikis = searchAllWikis;
     }
 
     /**
@@ -246,6 +291,24 @@ public class HeyWikiConfig {
                                  .setTooltip(Text.translatable("options.heywiki.zh_variant.description"))
                                  .setSaveConsumer(newValue -> this.zhVariant = newValue)
                                  .build());
+        general.addEntry(entryBuilder
+                                 .startBooleanToggle(Text.translatable("options.heywiki.precompute_link_table.name"),
+                                                     this.precomputeLinkTable())
+                                 .setDefaultValue(false)
+                                 .setTooltip(Text.translatable("options.heywiki.precompute_link_table.description"))
+                                 .setSaveConsumer(newValue -> {
+                                     if (newValue != this.precomputeLinkTable())
+                                         requireReload.set(true);
+                                     this.precomputeLinkTable = newValue;
+                                 })
+                                 .build());
+        general.addEntry(entryBuilder
+                                 .startBooleanToggle(Text.translatable("options.heywiki.warm_up_connections.name"),
+                                                     this.warmUpConnections())
+                                 .setDefaultValue(true)
+                                 .setTooltip(Text.translatable("options.heywiki.warm_up_connections.description"))
+                                 .setSaveConsumer(newValue -> this.warmUpConnections = newValue)
+                                 .build());
         general.addEntry(entryBuilder
                                  .fillKeybindingField(Text.translatable("key.heywiki.open"), HeyWikiClient.openWikiKey)
                                  .setTooltip(Text.translatable("options.heywiki.open_key.description"))
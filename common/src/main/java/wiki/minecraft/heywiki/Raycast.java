@@ -31,21 +31,25 @@ public class Raycast {
      */
     public static void onClientTickPost(MinecraftClient client) {
         while (openWikiKey.wasPressed()) {
-            Target target;
-            if (Screen.hasAltDown()) {
-                assert client.player != null;
-                target = Target.of(client.player.getInventory().getMainHandStack());
-            } else {
-                target = Raycast.raycastWithMessage();
-            }
+            try (var ignored = MOD.metrics().tracer().startTrace("open_key")) {
+                Target target;
+                try (var span = MOD.metrics().tracer().current().span("raycast")) {
+                    if (Screen.hasAltDown()) {
+                        assert client.player != null;
+                        target = Target.of(client.player.getInventory().getMainHandStack());
+                    } else {
+                        target = Raycast.raycastWithMessage();
+                    }
+                }
 
-            if (target != null) {
-                var page = WikiPage.fromTarget(target);
-                if (page == null) {
-                    client.inGameHud.setOverlayMessage(NO_FAMILY_MESSAGE, false);
-                    return;
+                if (target != null) {
+                    var page = WikiPage.fromTarget(target);
+                    if (page == null) {
+                        client.inGameHud.setOverlayMessage(NO_FAMILY_MESSAGE, false);
+                        return;
+                    }
+                    page.openInBrowser(null);
                 }
-                page.openInBrowser(null);
             }
         }
     }
@@ -55,16 +59,9 @@ public class Raycast {
      */
     public static void onDebugTextRight(List<String> texts) {
         var target = Raycast.raycast();
-        if (target == null) {
-            texts.add("heywiki: null");
-            return;
-        }
-        var page = WikiPage.fromTarget(target);
-        if (page == null) {
-            texts.add("heywiki: null");
-            return;
-        }
-        texts.add("heywiki: " + page.getUri());
+        var page = target != null ? WikiPage.fromTarget(target) : null;
+        texts.add("heywiki: " + (page != null ? page.getUrl() : "null"));
+        texts.add(MOD.metrics().debugLine());
     }
 
     /**
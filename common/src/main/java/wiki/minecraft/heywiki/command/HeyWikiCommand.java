@@ -0,0 +1,76 @@
+package wiki.minecraft.heywiki.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.DynamicCommandExceptionType;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import dev.architectury.event.events.client.ClientCommandRegistrationEvent.ClientCommandSourceStack;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.text.ClickEvent;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import wiki.minecraft.heywiki.HeyWikiClient;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static dev.architectury.event.events.client.ClientCommandRegistrationEvent.literal;
+
+public class HeyWikiCommand {
+    public static final DynamicCommandExceptionType DUMP_FAILED = new DynamicCommandExceptionType(
+            error -> Text.translatable("commands.heywiki.dump.failed", error));
+    private static final MinecraftClient CLIENT = MinecraftClient.getInstance();
+    private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
+
+    @SuppressWarnings("UnusedReturnValue")
+    public static LiteralCommandNode<ClientCommandSourceStack> register(
+            CommandDispatcher<ClientCommandSourceStack> dispatcher) {
+        return dispatcher.register(
+                literal("heywiki")
+                        .then(literal("stats")
+                                      .executes(HeyWikiCommand::stats)
+                                      .then(literal("dump")
+                                                    .executes(ctx -> dump(ctx, "heywiki-stats",
+                                                                          MOD.metrics()::dump))))
+                        .then(literal("traces")
+                                      .then(literal("dump")
+                                                    .executes(ctx -> dump(ctx, "heywiki-traces",
+                                                                          MOD.metrics().tracer()::export))))
+                        .then(literal("linktable")
+                                      .then(literal("dump")
+                                                    .executes(ctx -> dump(ctx, "heywiki-linktable",
+                                                                          MOD.linkTableManager()::export)))));
+    }
+
+    private static int stats(CommandContext<ClientCommandSourceStack> ctx) {
+        for (String line : MOD.metrics().summary()) {
+            ctx.getSource().arch$sendSuccess(() -> Text.literal(line), false);
+        }
+        return 0;
+    }
+
+    private static int dump(CommandContext<ClientCommandSourceStack> ctx, String prefix, Dumper dumper)
+            throws CommandSyntaxException {
+        String name = prefix + "-" + new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date()) + ".json";
+        Path path = CLIENT.runDirectory.toPath().resolve("debug").resolve(name);
+        try {
+            dumper.dump(path);
+        } catch (IOException e) {
+            throw DUMP_FAILED.create(e.getMessage());
+        }
+
+        Text file = Text.literal(name).formatted(Formatting.UNDERLINE).styled(
+                style -> style.withClickEvent(new ClickEvent(ClickEvent.Action.OPEN_FILE,
+                                                             path.toAbsolutePath().toString())));
+        ctx.getSource().arch$sendSuccess(() -> Text.translatable("commands.heywiki.dump.success", file), false);
+        return 0;
+    }
+
+    @FunctionalInterface
+    private interface Dumper {
+        void dump(Path path) throws IOException;
+    }
+}
@@ -0,0 +1,97 @@
+package wiki.minecraft.heywiki.command;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.registry.Registry;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.structure.StructureStart;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkStatus;
+import net.minecraft.world.gen.structure.Structure;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Finds the structure at a position in an integrated server world.
+ *
+ * <p>Lookups always run on the server thread. The bounding boxes of every structure start referenced by a chunk
+ * are cached in a per-dimension index keyed by chunk, so repeated lookups inside large structures
+ * do not need to read any chunk again. The index is only accessed from the server thread.
+ */
+public class StructureLookup {
+    private static final int MAX_CACHED_CHUNKS = 4096;
+    private final Map<ServerWorld, Long2ObjectMap<List<StructureBox>>> index = new WeakHashMap<>();
+
+    /**
+     * Finds the structure containing a position in the world of a player.
+     *
+     * @param server     The integrated server.
+     * @param playerUuid The UUID of the player whose world should be searched.
+     * @param pos        The position.
+     * @return A future completed on the server thread with the structure, if any.
+     */
+    public CompletableFuture<Optional<RegistryEntry<Structure>>> find(MinecraftServer server, UUID playerUuid,
+                                                                      BlockPos pos) {
+        return CompletableFuture.supplyAsync(() -> {
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(playerUuid);
+            if (player == null) return Optional.empty();
+
+            return this.find(player.getServerWorld(), pos);
+        }, server);
+    }
+
+    private Optional<RegistryEntry<Structure>> find(ServerWorld world, BlockPos pos) {
+        for (StructureBox box : this.getBoxes(world, new ChunkPos(pos))) {
+            if (box.boundingBox().contains(pos)) {
+                return Optional.of(box.structure());
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private List<StructureBox> getBoxes(ServerWorld world, ChunkPos chunkPos) {
+        Long2ObjectMap<List<StructureBox>> chunks = this.index.computeIfAbsent(world,
+                                                                               w -> new Long2ObjectOpenHashMap<>());
+        long key = chunkPos.toLong();
+        List<StructureBox> cached = chunks.get(key);
+        if (cached != null) return cached;
+
+        Chunk chunk = world.getChunk(chunkPos.x, chunkPos.z, ChunkStatus.STRUCTURE_REFERENCES, false);
+        if (chunk == null) return List.of();
+
+        Registry<Structure> registry = world.getRegistryManager().get(RegistryKeys.STRUCTURE);
+        List<StructureBox> boxes = new ArrayList<>();
+        for (Map.Entry<Structure, LongSet> entry : chunk.getStructureReferences().entrySet()) {
+            Structure structure = entry.getKey();
+            LongIterator starts = entry.getValue().iterator();
+            while (starts.hasNext()) {
+                long startPos = starts.nextLong();
+                Chunk startChunk = world.getChunk(ChunkPos.getPackedX(startPos), ChunkPos.getPackedZ(startPos),
+                                                  ChunkStatus.STRUCTURE_STARTS);
+                StructureStart structureStart = startChunk.getStructureStart(structure);
+                if (structureStart == null || !structureStart.hasChildren()) continue;
+
+                boxes.add(new StructureBox(registry.getEntry(structure), structureStart.getBoundingBox()));
+            }
+        }
+
+        List<StructureBox> result = List.copyOf(boxes);
+        if (chunks.size() >= MAX_CACHED_CHUNKS) chunks.clear();
+        chunks.put(key, result);
+        return result;
+    }
+
+    private record StructureBox(RegistryEntry<Structure> structure, BlockBox boundingBox) {
+    }
+}
@@ -3,34 +3,28 @@ package wiki.minecraft.heywiki.command;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
 import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.mojang.logging.LogUtils;
 import dev.architectury.event.events.client.ClientCommandRegistrationEvent;
-import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.client.MinecraftClient;
-import net.minecraft.registry.RegistryKeys;
 import net.minecraft.server.integrated.IntegratedServer;
-import net.minecraft.structure.StructureStart;
 import net.minecraft.text.Text;
-import net.minecraft.util.math.BlockBox;
-import net.minecraft.util.math.ChunkPos;
-import net.minecraft.world.chunk.Chunk;
-import net.minecraft.world.chunk.ChunkStatus;
-import net.minecraft.world.gen.structure.Structure;
+import org.slf4j.Logger;
 import wiki.minecraft.heywiki.wiki.target.Target;
 import wiki.minecraft.heywiki.wiki.WikiPage;
 
-import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
 import static dev.architectury.event.events.client.ClientCommandRegistrationEvent.literal;
-import static wiki.minecraft.heywiki.wiki.WikiPage.NO_FAMILY_EXCEPTION;
+import static wiki.minecraft.heywiki.wiki.WikiPage.NO_FAMILY_MESSAGE;
 
 public class WhatStructureCommand {
     public static final SimpleCommandExceptionType NO_INTEGRATED_SERVER = new SimpleCommandExceptionType(
             Text.translatable("commands.whatstructure.no_integrated_server"));
-    public static final SimpleCommandExceptionType NO_STRUCTURE = new SimpleCommandExceptionType(
-            Text.translatable("commands.whatstructure.no_structure"));
+    public static final Text NO_STRUCTURE_MESSAGE = Text.translatable("commands.whatstructure.no_structure");
+    private static final Logger LOGGER = LogUtils.getLogger();
     private static final MinecraftClient CLIENT = MinecraftClient.getInstance();
+    private static final StructureLookup LOOKUP = new StructureLookup();
 
     @SuppressWarnings("UnusedReturnValue")
     public static LiteralCommandNode<ClientCommandRegistrationEvent.ClientCommandSourceStack> register(
@@ -46,46 +40,30 @@ public class WhatStructureCommand {
                                 throw NO_INTEGRATED_SERVER.create();
                             }
 
-                            IntegratedServer server = CLIENT.getServer();
+                            IntegratedServer server = Objects.requireNonNull(CLIENT.getServer());
                             UUID playerUuid = CLIENT.player.getUuid();
+                            var source = ctx.getSource();
 
-                            var playerManager = Objects.requireNonNull(server).getPlayerManager();
-                            var serverPlayer = playerManager.getPlayer(playerUuid);
-                            var serverWorld = Objects.requireNonNull(serverPlayer).getServerWorld();
-                            var chunkPos = new ChunkPos(block);
-                            Chunk chunk = serverWorld.getChunk(chunkPos.x, chunkPos.z,
-                                                               ChunkStatus.STRUCTURE_REFERENCES,
-                                                               false);
-                            if (chunk == null) {
-                                return 1;
-                            }
+                            LOOKUP.find(server, playerUuid, block).whenCompleteAsync((structure, error) -> {
+                                if (error != null) {
+                                    LOGGER.error("Failed to look up structure at {}", block, error);
+                                    source.arch$sendFailure(Text.translatable("commands.whatstructure.failed"));
+                                    return;
+                                }
+                                if (structure.isEmpty()) {
+                                    source.arch$sendFailure(NO_STRUCTURE_MESSAGE);
+                                    return;
+                                }
 
-                            Map<Structure, LongSet> references = chunk.getStructureReferences();
-                            for (Map.Entry<Structure, LongSet> entry : references.entrySet()) {
-                                Structure structure = entry.getKey();
-                                LongSet positions = entry.getValue();
-                                var startChunkPos = new ChunkPos(positions.toLongArray()[0]);
-                                Chunk startChunk = serverWorld.getChunk(startChunkPos.x, startChunkPos.z,
-                                                                   ChunkStatus.STRUCTURE_STARTS,
-                                                                   false);
-                                assert startChunk != null;
-                                StructureStart structureStart = startChunk.getStructureStart(structure);
-                                assert structureStart != null;
-                                BlockBox boundingBox = structureStart.getBoundingBox();
-                                if (boundingBox.contains(block)) {
-                                    var strucutreRegistryEntry = serverWorld.getRegistryManager()
-                                            .get(RegistryKeys.STRUCTURE).getEntry(structure);
-                                    var target = Target.of(strucutreRegistryEntry, "structure");
-                                    if (target == null) return 1;
-                                    var page = WikiPage.fromTarget(target);
-                                    if (page == null) {
-                                        throw NO_FAMILY_EXCEPTION.create();
-                                    }
-                                    page.openInBrowserCommand(null);
-                                    return 0;
+                                var target = Target.of(structure.get(), "structure");
+                                var page = target == null ? null : WikiPage.fromTarget(target);
+                                if (page == null) {
+                                    source.arch$sendFailure(NO_FAMILY_MESSAGE);
+                                    return;
                                 }
-                            }
-                            throw NO_STRUCTURE.create();
+                                page.openInBrowserCommand(null);
+                            }, CLIENT);
+                            return 0;
                         }));
     }
 }
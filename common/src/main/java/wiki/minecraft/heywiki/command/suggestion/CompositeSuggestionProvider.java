@@ -0,0 +1,136 @@
+package wiki.minecraft.heywiki.command.suggestion;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.context.StringRange;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import dev.architectury.event.events.client.ClientCommandRegistrationEvent.ClientCommandSourceStack;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.screen.ChatScreen;
+import org.jetbrains.annotations.Nullable;
+import wiki.minecraft.heywiki.mixin.ChatScreenAccessor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Combines the suggestions of several sources without waiting for the network.
+ *
+ * <p>Every source returns the suggestions it has locally right away, and may start a remote lookup in the
+ * background. The suggestions are returned at once, ranked in the order of the sources and deduplicated by their
+ * text. When a remote lookup brings new suggestions, the suggestions of the chat screen are refreshed, which asks
+ * the sources again, and they now have the results locally.
+ *
+ * <p>Nothing is refreshed if the input has changed since the lookup started.
+ */
+public class CompositeSuggestionProvider implements SuggestionProvider<ClientCommandSourceStack> {
+    private static final MinecraftClient CLIENT = MinecraftClient.getInstance();
+    private final List<Source> sources;
+    private volatile String latestInput;
+
+    /**
+     * Creates a new composite suggestion provider.
+     *
+     * @param sources The sources, in the order their suggestions are ranked.
+     */
+    public CompositeSuggestionProvider(List<Source> sources) {
+        this.sources = List.copyOf(sources);
+    }
+
+    @Override
+    public CompletableFuture<Suggestions> getSuggestions(CommandContext<ClientCommandSourceStack> context,
+                                                         SuggestionsBuilder builder) {
+        String input = builder.getInput();
+        this.latestInput = input;
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        List<CompletableFuture<Boolean>> pending = new ArrayList<>();
+        for (Source source : this.sources) {
+            Result result = source.suggest(context, builder);
+            for (Suggestion suggestion : result.suggestions()) {
+                if (seen.add(suggestion.getText())) suggestions.add(suggestion);
+            }
+            if (result.pending() != null) pending.add(result.pending());
+        }
+
+        for (CompletableFuture<Boolean> lookup : pending) {
+            lookup.thenAccept(changed -> {
+                if (changed) CLIENT.execute(() -> this.refresh(input));
+            });
+        }
+
+        if (suggestions.isEmpty()) return Suggestions.empty();
+
+        int start = Integer.MAX_VALUE;
+        int end = Integer.MIN_VALUE;
+        for (Suggestion suggestion : suggestions) {
+            start = Math.min(start, suggestion.getRange().getStart());
+            end = Math.max(end, suggestion.getRange().getEnd());
+        }
+        // The constructor keeps the order, unlike SuggestionsBuilder#build, which sorts alphabetically.
+        return CompletableFuture.completedFuture(new Suggestions(StringRange.between(start, end), suggestions));
+    }
+
+    private void refresh(String input) {
+        if (!input.equals(this.latestInput)) return;
+        if (CLIENT.currentScreen instanceof ChatScreen chatScreen) {
+            ((ChatScreenAccessor) chatScreen).getChatInputSuggestor().refresh();
+        }
+    }
+
+    /**
+     * A source of suggestions.
+     */
+    @FunctionalInterface
+    public interface Source {
+        /**
+         * Wraps a provider that completes its suggestions right away, e.g. with
+         * {@link net.minecraft.command.CommandSource#suggestMatching CommandSource#suggestMatching}.
+         *
+         * @param provider The provider.
+         * @return The source.
+         */
+        static Source local(SuggestionProvider<ClientCommandSourceStack> provider) {
+            return (context, builder) -> {
+                SuggestionsBuilder ownBuilder = new SuggestionsBuilder(builder.getInput(), builder.getStart());
+                try {
+                    return new Result(provider.getSuggestions(context, ownBuilder)
+                                              .getNow(Suggestions.empty().join())
+                                              .getList(), null);
+                } catch (CommandSyntaxException e) {
+                    return Result.EMPTY;
+                }
+            };
+        }
+
+        /**
+         * Gets the suggestions for the input. Called on the render thread, so it must not block.
+         *
+         * @param context The command context.
+         * @param builder The builder of the argument. Sources should build their suggestions with their own builder.
+         * @return The suggestions that are available now.
+         */
+        Result suggest(CommandContext<ClientCommandSourceStack> context, SuggestionsBuilder builder);
+    }
+
+    /**
+     * The suggestions of a source.
+     *
+     * @param suggestions The suggestions that are available now, in order.
+     * @param pending     A remote lookup that completes with {@code true} when it has made new suggestions
+     *                    available to the source, or {@code null} if there is none.
+     */
+    public record Result(List<Suggestion> suggestions, @Nullable CompletableFuture<Boolean> pending) {
+        /**
+         * No suggestions.
+         */
+        public static final Result EMPTY = new Result(List.of(), null);
+    }
+}
@@ -8,17 +8,30 @@ import com.mojang.brigadier.suggestion.Suggestions;
 import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.mojang.logging.LogUtils;
 import dev.architectury.event.events.client.ClientCommandRegistrationEvent.ClientCommandSourceStack;
-import net.minecraft.util.Util;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
+import wiki.minecraft.heywiki.metrics.JsonDecodeEvent;
 import wiki.minecraft.heywiki.util.CachedDebouncer;
+import wiki.minecraft.heywiki.util.HeyWikiExecutors;
+import wiki.minecraft.heywiki.util.HostUnavailableException;
 import wiki.minecraft.heywiki.util.HttpUtil;
+import wiki.minecraft.heywiki.wiki.CanonicalTitles;
+import wiki.minecraft.heywiki.wiki.WikiIndividual;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringReader;
 import java.net.URI;
-import java.util.HashSet;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 import static wiki.minecraft.heywiki.util.HttpUtil.encodeUrl;
 
@@ -27,9 +40,11 @@ public class PageNameSuggestionProvider implements SuggestionProvider<ClientComm
     private static final Logger LOGGER = LogUtils.getLogger();
     private static final Gson GSON = new Gson();
     private static final String SUGGESTION_URL = "action=opensearch&format=json&formatversion=2&limit=10&search=%s";
-    private static final CachedDebouncer<String, Suggestions> debouncer = new CachedDebouncer<>(TIMEOUT);
+    private static final CachedDebouncer<String, Suggestions> debouncer =
+            new CachedDebouncer<>(TIMEOUT, "page_name_suggestions");
 
     private final Callable<URI> uriProvider;
+    private final @Nullable WikiIndividual wiki;
 
     /**
      * Creates a new page name suggestion provider.
@@ -37,7 +52,20 @@ public class PageNameSuggestionProvider implements SuggestionProvider<ClientComm
      * @param uriProvider The URI provider.
      */
     public PageNameSuggestionProvider(Callable<URI> uriProvider) {
+        this(uriProvider, null);
+    }
+
+    /**
+     * Creates a new page name suggestion provider that also remembers the URLs of the suggested pages, so that they
+     * can be linked to directly.
+     *
+     * @param uriProvider The URI provider.
+     * @param wiki        The wiki the suggestions are from, or {@code null} to not remember URLs.
+     * @see CanonicalTitles
+     */
+    public PageNameSuggestionProvider(Callable<URI> uriProvider, @Nullable WikiIndividual wiki) {
         this.uriProvider = uriProvider;
+        this.wiki = wiki;
     }
 
     @Override
@@ -49,34 +77,104 @@ public class PageNameSuggestionProvider implements SuggestionProvider<ClientComm
             }
 
             try {
-                Optional<Suggestions> result = debouncer.get(builder.getInput(), () -> {
-                    String remaining = builder.getRemaining();
-                    URI uri = HttpUtil.uriWithQuery(
-                            this.uriProvider.call(),
-                            String.format(SUGGESTION_URL, encodeUrl(remaining)));
-
-                    String response = HttpUtil.request(uri);
-
-                    JsonReader reader = GSON.newJsonReader(new StringReader(response));
-                    reader.beginArray();
-                    reader.skipValue();
-                    reader.beginArray();
-                    HashSet<String> suggestions = new HashSet<>();
-
-                    while (reader.hasNext()) {
-                        suggestions.add(reader.nextString());
-                    }
-                    reader.close();
-                    suggestions.forEach(builder::suggest);
-
+                URI apiUri = this.uriProvider.call();
+                // Nothing is suggested until the response arrives.
+                Optional<Suggestions> result = debouncer.get(builder.getInput(), apiUri.getHost(), false, () -> {
+                    fetchTitles(apiUri, builder.getRemaining(), this.wiki).forEach(builder::suggest);
                     return builder.build();
                 });
 
                 return result.orElseGet(builder::build);
             } catch (Exception e) {
-                LOGGER.warn("Failed to get suggestions", e);
+                if (e.getCause() instanceof HostUnavailableException unavailable) {
+                    LOGGER.debug("Skipped getting suggestions: {}", unavailable.getMessage());
+                } else {
+                    LOGGER.warn("Failed to get suggestions", e);
+                }
                 return builder.build();
             }
-        }, Util.getDownloadWorkerExecutor());
+        }, HeyWikiExecutors.io());
+    }
+
+    /**
+     * Fetches the titles of the pages that match a search with {@code action=opensearch}.
+     *
+     * @param apiUri The URI of the MediaWiki API.
+     * @param search The search term.
+     * @param wiki   The wiki to remember the URLs of the pages for, or {@code null} to not remember URLs.
+     * @return The page titles, most relevant first.
+     * @throws IOException          If the request fails or the response is malformed.
+     * @throws InterruptedException If the request is interrupted.
+     * @see CanonicalTitles
+     */
+    public static List<String> fetchTitles(URI apiUri, String search, @Nullable WikiIndividual wiki)
+            throws IOException, InterruptedException {
+        URI uri = HttpUtil.uriWithQuery(apiUri, String.format(SUGGESTION_URL, encodeUrl(search)));
+        BiConsumer<String, String> urls = wiki != null
+                ? (title, url) -> CanonicalTitles.put(wiki, title, url, null)
+                : null;
+        return HttpUtil.request(uri, body -> parseOpenSearch(
+                new InputStreamReader(body, StandardCharsets.UTF_8), -1, urls));
+    }
+
+    /**
+     * Parses the page titles from an {@code action=opensearch} response.
+     *
+     * @param response The response body.
+     * @return The page titles, most relevant first.
+     * @throws IOException If the response is malformed.
+     */
+    public static Set<String> parseOpenSearch(String response) throws IOException {
+        return new LinkedHashSet<>(parseOpenSearch(new StringReader(response), response.length(), null));
+    }
+
+    /**
+     * Parses the page titles from an {@code action=opensearch} response as it is read.
+     *
+     * @param response The reader of the response body.
+     * @return The page titles, most relevant first.
+     * @throws IOException If the response is malformed or cannot be read.
+     */
+    public static Set<String> parseOpenSearch(Reader response) throws IOException {
+        return new LinkedHashSet<>(parseOpenSearch(response, -1, null));
+    }
+
+    /**
+     * Parses an {@code action=opensearch} response, which is an array of the search term, the titles, their
+     * descriptions and their URLs.
+     */
+    private static List<String> parseOpenSearch(Reader response, int length, @Nullable BiConsumer<String, String> urls)
+            throws IOException {
+        JsonDecodeEvent event = new JsonDecodeEvent();
+        event.type = "opensearch";
+        event.length = length;
+        event.begin();
+
+        try (JsonReader reader = GSON.newJsonReader(response)) {
+            reader.beginArray();
+            reader.skipValue();
+            reader.beginArray();
+            List<String> titles = new ArrayList<>();
+
+            while (reader.hasNext()) {
+                titles.add(reader.nextString());
+            }
+
+            if (urls != null) {
+                reader.endArray();
+                if (reader.hasNext()) reader.skipValue();
+                if (reader.hasNext()) {
+                    reader.beginArray();
+                    for (int i = 0; i < titles.size() && reader.hasNext(); i++) {
+                        urls.accept(titles.get(i), reader.nextString());
+                    }
+                }
+            }
+
+            event.results = titles.size();
+            return titles;
+        } finally {
+            event.commit();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package wiki.minecraft.heywiki.command.suggestion;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.context.StringRange;
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import com.mojang.logging.LogUtils;
+import dev.architectury.event.events.client.ClientCommandRegistrationEvent.ClientCommandSourceStack;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.util.CachedDebouncer;
+import wiki.minecraft.heywiki.util.HeyWikiExecutors;
+import wiki.minecraft.heywiki.util.HostUnavailableException;
+import wiki.minecraft.heywiki.wiki.WikiIndividual;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Suggests page titles for an argument of the form {@code Title} or {@code namespace:Title}.
+ *
+ * <p>Pages from the {@link wiki.minecraft.heywiki.wiki.PageHistory PageHistory} that match are suggested first. Titles
+ * found by earlier searches are kept in an index. If the exact search was done before, its titles are suggested
+ * without a request. Otherwise, the titles of the longest earlier search that is a prefix of the current one are
+ * filtered and suggested right away, while the wiki is searched in the background. A search that is still running
+ * when the next one starts is cancelled, which interrupts its request.
+ *
+ * @see CompositeSuggestionProvider
+ */
+public class PageTitleSuggestionSource implements CompositeSuggestionProvider.Source {
+    private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final long TIMEOUT = 400;
+    private static final int HISTORY_LIMIT = 5;
+    private static final CachedDebouncer<String, List<String>> index =
+            new CachedDebouncer<>(TIMEOUT, "page_title_index");
+
+    private final String defaultNamespace;
+    private @Nullable CompletableFuture<Boolean> pending;
+
+    /**
+     * Creates a new page title source.
+     *
+     * @param defaultNamespace The namespace of the wiki to search if the argument has no namespace.
+     */
+    public PageTitleSuggestionSource(String defaultNamespace) {
+        this.defaultNamespace = defaultNamespace;
+    }
+
+    @Override
+    public CompositeSuggestionProvider.Result suggest(CommandContext<ClientCommandSourceStack> context,
+                                                      SuggestionsBuilder builder) {
+        String remaining = builder.getRemaining();
+        String namespace = this.defaultNamespace;
+        int offset = 0;
+        int colon = remaining.indexOf(':');
+        if (colon >= 0) {
+            namespace = remaining.substring(0, colon);
+            if (!MOD.familyManager().getAvailableNamespaces().contains(namespace)) {
+                return CompositeSuggestionProvider.Result.EMPTY;
+            }
+            offset = colon + 1;
+        }
+
+        String search = remaining.substring(offset);
+        WikiIndividual wiki = MOD.familyManager().activeWikis().get(namespace);
+        if (wiki == null) return CompositeSuggestionProvider.Result.EMPTY;
+
+        int start = builder.getStart() + offset;
+        StringRange range = StringRange.between(start, builder.getInput().length());
+        List<Suggestion> local = new ArrayList<>(
+                rank(MOD.pageHistory().matching(wiki, search, HISTORY_LIMIT), search, range));
+        if (search.isEmpty() || wiki.mwApiUrl().isEmpty()) return new CompositeSuggestionProvider.Result(local, null);
+
+        String apiUrl = wiki.mwApiUrl().get();
+        Optional<List<String>> exact = index.getIfPresent(keyOf(apiUrl, search));
+        if (exact.isPresent()) {
+            local.addAll(rank(exact.get(), search, range));
+            return new CompositeSuggestionProvider.Result(local, null);
+        }
+
+        for (int length = search.length() - 1; length > 0; length--) {
+            Optional<List<String>> partial = index.getIfPresent(keyOf(apiUrl, search.substring(0, length)));
+            if (partial.isPresent()) {
+                local.addAll(rank(partial.get().stream()
+                                         .filter(title -> title.regionMatches(true, 0, search, 0, search.length()))
+                                         .toList(), search, range));
+                break;
+            }
+        }
+
+        URI apiUri = URI.create(apiUrl);
+        boolean answeredLocally = !local.isEmpty();
+        if (this.pending != null) this.pending.cancel(true);
+        CompletableFuture<Boolean> pending = HeyWikiExecutors.supplyAsync(() -> {
+            try {
+                return index.get(keyOf(apiUrl, search), apiUri.getHost(), answeredLocally,
+                                 () -> PageNameSuggestionProvider.fetchTitles(apiUri, search, wiki))
+                            .isPresent();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof HostUnavailableException unavailable) {
+                    LOGGER.debug("Skipped getting suggestions: {}", unavailable.getMessage());
+                } else if (e.getCause() instanceof InterruptedException) {
+                    // A newer search superseded this one.
+                } else {
+                    LOGGER.warn("Failed to get suggestions", e);
+                }
+                return false;
+            }
+        }, HeyWikiExecutors.io());
+        this.pending = pending;
+        return new CompositeSuggestionProvider.Result(local, pending);
+    }
+
+    private static String keyOf(String apiUrl, String search) {
+        return apiUrl + '\n' + search;
+    }
+
+    /**
+     * Ranks a title that matches the search exactly first, and keeps the order of the wiki otherwise.
+     */
+    private static List<Suggestion> rank(List<String> titles, String search, StringRange range) {
+        List<Suggestion> suggestions = new ArrayList<>(titles.size());
+        for (String title : titles) {
+            Suggestion suggestion = new Suggestion(range, title);
+            if (title.equalsIgnoreCase(search)) suggestions.addFirst(suggestion);
+            else suggestions.add(suggestion);
+        }
+        return suggestions;
+    }
+}
@@ -6,7 +6,6 @@ import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.widget.*;
 import net.minecraft.client.texture.NativeImage;
-import net.minecraft.client.texture.NativeImageBackedTexture;
 import net.minecraft.client.texture.TextureManager;
 import net.minecraft.screen.ScreenTexts;
 import net.minecraft.text.Text;
@@ -15,7 +14,12 @@ import net.minecraft.util.Util;
 import org.jetbrains.annotations.NotNull;
 import org.lwjgl.glfw.GLFW;
 import org.slf4j.Logger;
-import wiki.minecraft.heywiki.util.HttpUtil;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.metrics.ImageEvent;
+import wiki.minecraft.heywiki.metrics.Trace;
+import wiki.minecraft.heywiki.util.HeyWikiExecutors;
+import wiki.minecraft.heywiki.util.ImageLoader;
+import wiki.minecraft.heywiki.util.TaskScope;
 import wiki.minecraft.heywiki.wiki.PageExcerpt;
 import wiki.minecraft.heywiki.wiki.WikiPage;
 
@@ -38,7 +42,10 @@ import static wiki.minecraft.heywiki.HeyWikiClient.openWikiKey;
  */
 public class ConfirmWikiPageScreen extends Screen {
     private static final Logger LOGGER = LogUtils.getLogger();
+    private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
     private static final TextureManager textureManager = MinecraftClient.getInstance().getTextureManager();
+    private static final int IMAGE_HEIGHT = 100;
+    private static final int MAX_IMAGE_WIDTH = 200;
     protected final BooleanConsumer callback;
     private final String link;
     private final Text message;
@@ -49,7 +56,8 @@ public class ConfirmWikiPageScreen extends Screen {
     private Identifier textureId = Identifier.of("minecraft", "textures/misc/unknown_server.png");
     private volatile PageExcerpt excerpt;
     private volatile boolean hasExcerpt = false;
-    private volatile byte[] image = null;
+    private final Trace trace = MOD.metrics().tracer().current();
+    private final TaskScope tasks = new TaskScope(MinecraftClient.getInstance());
 
     /**
      * Creates a new screen.
@@ -94,28 +102,34 @@ public class ConfirmWikiPageScreen extends Screen {
     }
 
     private void loadImage(@NotNull CompletableFuture<PageExcerpt> excerpt) {
-        assert this.client != null;
-
-        excerpt.thenAccept(result -> {
+        // The excerpt is shared through the excerpt cache, so only a copy is cancelled when the screen closes.
+        this.tasks.track(excerpt.copy()).thenAccept(result -> {
             if (result == null) {
                 hasExcerpt = false;
-                this.client.execute(this::init);
+                this.tasks.execute(this::init);
+                return;
             }
             this.excerpt = result;
 
             if (this.excerpt.imageUrl() != null) {
-                HttpUtil.loadAndCacheFile(this.excerpt.imageUrl()).thenAccept(image -> {
-                    this.image = image;
-                    this.client.execute(this::init);
-                });
+                var span = this.trace.span("image_download");
+                var download = this.tasks.track(
+                        MOD.imageLoader().load(this.excerpt.imageUrl(), ImageLoader.Priority.HERO));
+                download.whenComplete((image, throwable) -> span.close());
+                download.thenAcceptAsync(image -> {
+                    if (image != null) this.decodeImage(result, image);
+                }, HeyWikiExecutors.cpu());
             }
-            this.client.execute(this::init);
+            this.tasks.execute(this::init);
         });
     }
 
     /**
      * Opens the screen. When confirmed, the link will be opened in the user's browser.
      *
+     * <p>The URL of the page is built again when confirmed, since loading the excerpt usually resolves the title to
+     * a direct URL in the meantime.
+     *
      * @param parent  The parent screen.
      * @param url     The URL to open.
      * @param excerpt The excerpt of the page.
@@ -125,7 +139,8 @@ public class ConfirmWikiPageScreen extends Screen {
         MinecraftClient client = MinecraftClient.getInstance();
         client.setScreen(new ConfirmWikiPageScreen((confirmed) -> {
             if (confirmed) {
-                Util.getOperatingSystem().open(url);
+                if (page != null) MOD.pageHistory().recordVisit(page);
+                Util.getOperatingSystem().open(page != null ? page.getUrl() : url);
             }
 
             client.setScreen(parent);
@@ -178,42 +193,51 @@ public class ConfirmWikiPageScreen extends Screen {
     }
 
     private IconWidget createImageWidget() {
-        int height = 100;
+        int height = IMAGE_HEIGHT;
         int realWidth = this.excerpt != null ? this.excerpt.imageWidth() : 0;
         int realHeight = this.excerpt != null ? this.excerpt.imageHeight() : 0;
         var aspectRatio = (double) realWidth / realHeight;
-        final int maxWidth = 200;
-        int width = (int) (height * aspectRatio);
-        int newWidth = -1;
-        if (width > maxWidth) {
-            width = maxWidth;
-            newWidth = realHeight * (maxWidth / height);
-        }
-
-        assert client != null;
-        if (this.image != null) {
-            try {
-                BufferedImage image = ImageIO.read(new ByteArrayInputStream(this.image));
+        int width = Math.min((int) (height * aspectRatio), MAX_IMAGE_WIDTH);
 
-                if (newWidth != -1) {
-                    int x = (realWidth - newWidth) / 2;
-                    image = image.getSubimage(x, 0, newWidth, realHeight);
-                }
+        return IconWidget.create(width, height, this.textureId, width, height);
+    }
 
-                ByteArrayOutputStream os = new ByteArrayOutputStream();
-                ImageIO.write(image, "png", os);
-                InputStream is = new ByteArrayInputStream(os.toByteArray());
+    /**
+     * Decodes and crops the page image off the render thread, then queues it for upload.
+     */
+    private void decodeImage(PageExcerpt excerpt, byte[] bytes) {
+        int realWidth = excerpt.imageWidth();
+        int realHeight = excerpt.imageHeight();
+        int newWidth = -1;
+        if ((int) (IMAGE_HEIGHT * ((double) realWidth / realHeight)) > MAX_IMAGE_WIDTH) {
+            newWidth = realHeight * (MAX_IMAGE_WIDTH / IMAGE_HEIGHT);
+        }
 
-                NativeImageBackedTexture texture = new NativeImageBackedTexture(NativeImage.read(is));
-                this.textureId = Identifier.of("heywiki", String.valueOf(this.link.hashCode()));
+        try (var span = this.trace.span("image_decode")) {
+            Identifier textureId = Identifier.of("heywiki", String.valueOf(this.link.hashCode()));
+            ImageEvent decodeEvent = ImageEvent.begin(ImageEvent.DECODE, textureId.toString());
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+            decodeEvent.commit(image.getWidth(), image.getHeight());
 
-                textureManager.registerTexture(this.textureId, texture);
-            } catch (Exception e) {
-                LOGGER.error("Failed to load image", e);
+            ImageEvent cropEvent = ImageEvent.begin(ImageEvent.CROP, textureId.toString());
+            if (newWidth != -1) {
+                int x = (realWidth - newWidth) / 2;
+                image = image.getSubimage(x, 0, newWidth, realHeight);
             }
-        }
 
-        return IconWidget.create(width, height, this.textureId, width, height);
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", os);
+            InputStream is = new ByteArrayInputStream(os.toByteArray());
+            NativeImage nativeImage = NativeImage.read(is);
+            cropEvent.commit(image.getWidth(), image.getHeight());
+
+            MOD.textureUploads().enqueue(textureId, nativeImage, this.tasks, () -> {
+                this.textureId = textureId;
+                this.init();
+            });
+        } catch (Exception e) {
+            LOGGER.error("Failed to load image", e);
+        }
     }
 
     protected DirectionalLayoutWidget createButtonLayout() {
@@ -230,11 +254,14 @@ public class ConfirmWikiPageScreen extends Screen {
     }
 
     @Override
-    public void close() {
+    public void removed() {
+        // The screen is replaced by its parent without close(), so resources are freed whenever it is removed.
+        this.tasks.close();
         if (!this.textureId.equals(Identifier.of("minecraft", "textures/misc/unknown_server.png"))) {
             textureManager.destroyTexture(this.textureId);
+            MOD.metrics().untrackTexture(this.textureId);
         }
-        super.close();
+        super.removed();
     }
 
     @Override
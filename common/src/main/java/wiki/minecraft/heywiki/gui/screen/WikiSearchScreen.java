@@ -9,9 +9,9 @@ import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.widget.*;
 import net.minecraft.client.texture.NativeImage;
-import net.minecraft.client.texture.NativeImageBackedTexture;
 import net.minecraft.text.Style;
 import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.Util;
 import org.apache.commons.codec.binary.Hex;
@@ -22,8 +22,16 @@ import org.slf4j.Logger;
 import wiki.minecraft.heywiki.HeyWikiClient;
 import wiki.minecraft.heywiki.gui.widget.SuggestionEntryListWidget;
 import wiki.minecraft.heywiki.gui.widget.SuggestionEntryWidget;
+import wiki.minecraft.heywiki.metrics.ImageEvent;
+import wiki.minecraft.heywiki.metrics.JsonDecodeEvent;
 import wiki.minecraft.heywiki.util.CachedDebouncer;
+import wiki.minecraft.heywiki.util.HeyWikiExecutors;
+import wiki.minecraft.heywiki.util.HostLimiter;
+import wiki.minecraft.heywiki.util.HostUnavailableException;
 import wiki.minecraft.heywiki.util.HttpUtil;
+import wiki.minecraft.heywiki.util.ImageLoader;
+import wiki.minecraft.heywiki.util.TaskScope;
+import wiki.minecraft.heywiki.wiki.CanonicalTitles;
 import wiki.minecraft.heywiki.wiki.WikiFamily;
 import wiki.minecraft.heywiki.wiki.WikiIndividual;
 import wiki.minecraft.heywiki.wiki.WikiPage;
@@ -34,33 +42,55 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import static wiki.minecraft.heywiki.HeyWikiClient.openWikiSearchKey;
-import static wiki.minecraft.heywiki.util.HttpUtil.encodeUrl;
 
 public class WikiSearchScreen extends Screen {
     private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
     private static final Logger LOGGER = LogUtils.getLogger();
-    private static final String SUGGESTION_URL = "action=query&format=json&formatversion=2" +
+    /**
+     * The query of the MediaWiki API request for suggestions, formatted with the search term.
+     */
+    public static final String SUGGESTION_URL = "action=query&format=json&formatversion=2" +
                                                  "&converttitles=true&redirects=true" +
-                                                 "&prop=pageimages&pilicense=any&piprop=thumbnail" +
+                                                 "&prop=pageimages|info&pilicense=any&piprop=thumbnail&inprop=url" +
                                                  "&generator=prefixsearch&gpssearch=%s";
-    private final CachedDebouncer<String, SequencedSet<Suggestion>> debouncer = new CachedDebouncer<>(400);
+    private static final int VISIBLE_ROWS = 6;
+    private static final int HISTORY_LIMIT = 3;
+    /**
+     * How long a search of all wikis waits for slow wikis before showing the results that have arrived.
+     */
+    private static final long FAN_OUT_DEADLINE_MILLIS = 600;
+    /**
+     * Shared by all search screens, so that the typing cadence and the cached suggestions outlive a screen.
+     */
+    private static final CachedDebouncer<SearchKey, SequencedSet<Suggestion>> debouncer =
+            new CachedDebouncer<>(400, "search_suggestions", SearchKey::term);
     private SimplePositioningWidget layout = new SimplePositioningWidget(0, 0, this.width, this.height);
     private TextFieldWidget textField;
     private final List<Identifier> textures = new LinkedList<>();
+    private final TaskScope tasks = new TaskScope(MinecraftClient.getInstance());
+    private final Map<String, CompletableFuture<byte[]>> imageRequests = new HashMap<>();
     private SuggestionEntryListWidget entryList;
     private String selectedTitle;
     private String lastSearchTerm;
     private SequencedSet<Suggestion> suggestions;
+    private boolean shownUnavailable = false;
+    private boolean searchAllWikis = MOD.config().searchAllWikis();
+    private @Nullable FanOut fanOut;
     private WikiFamily wikiFamily = MOD.familyManager().getFamily(MOD.config().searchDefaultWikiFamily());
     private WikiIndividual wiki = wikiFamily.getWiki();
 
@@ -78,9 +108,11 @@ public class WikiSearchScreen extends Screen {
         var mainLayout = this.layout.add(DirectionalLayoutWidget.vertical().spacing(10));
         mainLayout.getMainPositioner().alignHorizontalCenter();
         mainLayout.add(new TextWidget(
-                Text.translatable("gui.heywiki_search.title",
-                                  Text.translatable(wikiFamily.getTranslationKey())
-                                      .fillStyle(Style.EMPTY.withUnderline(true))),
+                this.searchAllWikis
+                        ? Text.translatable("gui.heywiki_search.title_all")
+                        : Text.translatable("gui.heywiki_search.title",
+                                            Text.translatable(wikiFamily.getTranslationKey())
+                                                .fillStyle(Style.EMPTY.withUnderline(true))),
                 this.textRenderer));
 
         var omniboxLayout = mainLayout.add(DirectionalLayoutWidget.vertical().spacing(4));
@@ -118,28 +150,56 @@ public class WikiSearchScreen extends Screen {
                                                                       (family) -> {
                                                                           this.wikiFamily = family;
                                                                           this.wiki = family.getWiki();
+                                                                          this.searchAllWikis = false;
+                                                                          MOD.config().setSearchAllWikis(false);
+                                                                          HeyWikiExecutors.io().execute(
+                                                                                  () -> MOD.config().save(false));
                                                                           this.entryList.clearSuggestions();
                                                                           this.init();
                                                                       }));
                                      }).width(71).build());
 
-        this.entryList = new SuggestionEntryListWidget(client, 250, 24 * 6, 0, this);
-
-        wikiFamily.getWiki().mwApiUrl().ifPresentOrElse(
-                url -> omniboxLayout.add(this.entryList),
-                () -> {
-                    var layout = omniboxLayout.add(DirectionalLayoutWidget.vertical().spacing(4));
-                    layout.getMainPositioner().alignHorizontalCenter();
-                    layout.add(
-                            new TextWidget(Text.translatable("gui.heywiki_search.no_suggestions"), this.textRenderer));
-                    layout.add(ButtonWidget.builder(Text.translatable("gui.heywiki_search.search"),
-                                                    button -> {
-                                                        String url = wiki.searchUrl().orElseThrow()
-                                                                         .formatted(this.getSearchTerm());
-                                                        Util.getOperatingSystem().open(url);
-                                                    })
-                                           .width(100).build());
-                });
+        omniboxLayout.add(
+                CyclingButtonWidget.onOffBuilder(this.searchAllWikis)
+                                   .build(0, 0, 250, 20, Text.translatable("gui.heywiki_search.all_wikis"),
+                                          (button, searchAllWikis) -> {
+                                              this.searchAllWikis = searchAllWikis;
+                                              MOD.config().setSearchAllWikis(searchAllWikis);
+                                              HeyWikiExecutors.io().execute(() -> MOD.config().save(false));
+                                              this.fanOut = null;
+                                              this.suggestions = null;
+                                              this.entryList.clearSuggestions();
+                                              this.init();
+                                          }));
+
+        this.entryList = new SuggestionEntryListWidget(client, 250, 24 * VISIBLE_ROWS, 0, this);
+
+        if (this.searchAllWikis) {
+            omniboxLayout.add(this.entryList);
+        } else {
+            wikiFamily.getWiki().mwApiUrl().ifPresentOrElse(
+                    url -> {
+                        this.shownUnavailable = !HostLimiter.isAvailable(url);
+                        if (this.shownUnavailable) {
+                            omniboxLayout.add(new TextWidget(Text.translatable("gui.heywiki_search.offline")
+                                                                 .formatted(Formatting.GRAY), this.textRenderer));
+                        }
+                        omniboxLayout.add(this.entryList);
+                    },
+                    () -> {
+                        var layout = omniboxLayout.add(DirectionalLayoutWidget.vertical().spacing(4));
+                        layout.getMainPositioner().alignHorizontalCenter();
+                        layout.add(new TextWidget(Text.translatable("gui.heywiki_search.no_suggestions"),
+                                                  this.textRenderer));
+                        layout.add(ButtonWidget.builder(Text.translatable("gui.heywiki_search.search"),
+                                                        button -> {
+                                                            String url = wiki.searchUrl().orElseThrow()
+                                                                             .expand(this.getSearchTerm());
+                                                            Util.getOperatingSystem().open(url);
+                                                        })
+                                               .width(100).build());
+                    });
+        }
 
         this.layout.forEachChild(this::addDrawableChild);
         this.initTabNavigation();
@@ -157,14 +217,120 @@ public class WikiSearchScreen extends Screen {
             return;
         }
 
-        CompletableFuture
-                .runAsync(() -> this.fetchSuggestions(this.wiki.mwApiUrl().orElseThrow(), term)
-                                    .ifPresent(suggestions -> executor.execute(
-                                            () -> {
-                                                this.entryList.replaceSuggestions(suggestions);
-                                                this.suggestions = suggestions;
-                                            })),
-                          Util.getDownloadWorkerExecutor());
+        if (this.searchAllWikis) {
+            this.searchAllWikis(term);
+            return;
+        }
+
+        // Visited pages are shown right away, ahead of the previous suggestions that still match.
+        List<Suggestion> stillMatching = this.suggestions == null ? List.of() : this.suggestions
+                .stream()
+                .filter(suggestion -> suggestion.title().regionMatches(true, 0, term, 0, term.length()))
+                .toList();
+        SequencedSet<Suggestion> local = this.withHistory(term, stillMatching);
+        if (!local.isEmpty()) {
+            this.entryList.replaceSuggestions(local);
+            this.suggestions = local;
+        }
+
+        WikiIndividual wiki = this.wiki;
+        // Wikis without a MediaWiki API can still be searched, but only visited pages are suggested.
+        if (wiki.mwApiUrl().isEmpty()) return;
+        String apiUrl = wiki.mwApiUrl().get();
+        // The previous suggestions stay visible while the new ones load.
+        boolean answeredLocally = this.suggestions != null && !this.suggestions.isEmpty();
+        this.tasks.supply(() -> this.fetchSuggestions(wiki, apiUrl, term, answeredLocally), HeyWikiExecutors.io())
+                  .thenAccept(result -> this.tasks.execute(() -> {
+                      result.ifPresent(remote -> {
+                          SequencedSet<Suggestion> suggestions = this.withHistory(term, remote);
+                          this.entryList.replaceSuggestions(suggestions);
+                          this.suggestions = suggestions;
+                          this.requestImages(suggestions);
+                      });
+                      // Only rebuild when the state changes, since rebuilding fetches the suggestions again.
+                      assert this.client != null;
+                      if (this.client.currentScreen == this &&
+                          this.shownUnavailable == HostLimiter.isAvailable(apiUrl)) {
+                          this.init();
+                      }
+                  }));
+    }
+
+    /**
+     * Searches all wikis with a MediaWiki API in parallel. The previous suggestions that still match stay visible
+     * until the results of every wiki have arrived, or until {@value #FAN_OUT_DEADLINE_MILLIS} ms have passed. Results
+     * that arrive later are appended, so that the rows the player is looking at do not move.
+     */
+    private void searchAllWikis(String term) {
+        List<Suggestion> stillMatching = this.suggestions == null ? List.of() : this.suggestions
+                .stream()
+                .filter(suggestion -> suggestion.title().regionMatches(true, 0, term, 0, term.length()))
+                .toList();
+        SequencedSet<Suggestion> previous = renumber(stillMatching);
+        this.entryList.replaceSuggestions(previous);
+        this.suggestions = previous;
+
+        // The default wiki family comes first, so that it wins ties.
+        List<WikiFamily> families = MOD.familyManager().getAvailableFamilies()
+                                       .stream()
+                                       .filter(family -> family.getWiki().mwApiUrl().isPresent())
+                                       .sorted(Comparator.comparing((WikiFamily family) -> family != this.wikiFamily)
+                                                         .thenComparing(Comparator.naturalOrder()))
+                                       .toList();
+        FanOut fanOut = new FanOut(term, families);
+        this.fanOut = fanOut;
+        boolean answeredLocally = !previous.isEmpty();
+        for (WikiFamily family : families) {
+            WikiIndividual wiki = family.getWiki();
+            wiki.mwApiUrl().ifPresent(apiUrl -> this.tasks
+                    .supply(() -> this.fetchSuggestions(wiki, apiUrl, term, answeredLocally, true),
+                            HeyWikiExecutors.io())
+                    .thenAccept(result -> this.tasks.execute(() -> {
+                        if (this.fanOut == fanOut) fanOut.arrive(family, result.orElse(new TreeSet<>()));
+                    })));
+        }
+        CompletableFuture.delayedExecutor(FAN_OUT_DEADLINE_MILLIS, TimeUnit.MILLISECONDS)
+                         .execute(() -> this.tasks.execute(() -> {
+                             if (this.fanOut == fanOut) fanOut.passDeadline();
+                         }));
+    }
+
+    private void showSuggestions(SequencedSet<Suggestion> suggestions) {
+        this.entryList.replaceSuggestions(suggestions);
+        this.suggestions = suggestions;
+        this.requestImages(suggestions);
+    }
+
+    /**
+     * Numbers suggestions in the order they are given, since sets of suggestions are ordered by index.
+     */
+    private static SequencedSet<Suggestion> renumber(Collection<Suggestion> suggestions) {
+        SequencedSet<Suggestion> renumbered = new TreeSet<>();
+        int index = 0;
+        for (Suggestion suggestion : suggestions) renumbered.add(suggestion.withIndex(index++));
+        return renumbered;
+    }
+
+    /**
+     * Puts the visited pages that match a search term ahead of other suggestions. Visited pages that are also among
+     * the other suggestions keep their image.
+     */
+    private SequencedSet<Suggestion> withHistory(String term, Collection<Suggestion> others) {
+        Map<String, Suggestion> byTitle = new LinkedHashMap<>();
+        for (Suggestion suggestion : others) {
+            byTitle.putIfAbsent(suggestion.title().toLowerCase(Locale.ROOT), suggestion);
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (String title : MOD.pageHistory().matching(this.wiki, term, HISTORY_LIMIT)) {
+            Suggestion other = byTitle.remove(title.toLowerCase(Locale.ROOT));
+            suggestions.add(other != null
+                                    ? other
+                                    : new Suggestion(title, 0, Optional.empty(), Optional.empty(), Optional.empty(),
+                                                     Optional.empty()));
+        }
+        suggestions.addAll(byTitle.values());
+        return renumber(suggestions);
     }
 
     @Override public boolean keyPressed(int keyCode, int scanCode, int modifiers) {
@@ -181,23 +347,32 @@ public class WikiSearchScreen extends Screen {
 
     public void searchEntry(SuggestionEntryWidget selected) {
         if (selected != null) {
-            var page = new WikiPage(selected.suggestion.title(), this.wiki);
+            var page = new WikiPage(selected.suggestion.title(), this.wikiOf(selected.suggestion));
             page.openInBrowser(this);
         } else if (this.suggestions != null &&
                    !this.suggestions.isEmpty() &&
                    this.lastSearchTerm.equalsIgnoreCase(this.suggestions.getFirst().title())) {
-            var page = new WikiPage(this.suggestions.getFirst().title(), this.wiki);
+            var page = new WikiPage(this.suggestions.getFirst().title(), this.wikiOf(this.suggestions.getFirst()));
             page.openInBrowser(this);
         } else {
-            String url = wiki.searchUrl().orElseThrow().formatted(encodeUrl(this.lastSearchTerm));
+            String url = wiki.searchUrl().orElseThrow().expand(this.lastSearchTerm);
             Util.getOperatingSystem().open(url);
         }
     }
 
+    private WikiIndividual wikiOf(Suggestion suggestion) {
+        return suggestion.family().map(WikiFamily::getWiki).orElse(this.wiki);
+    }
+
     @Override
     public void close() {
         assert this.client != null;
-        this.executor.execute(() -> this.textures.forEach(this.client.getTextureManager()::destroyTexture));
+        this.tasks.close();
+        this.textures.forEach(textureId -> {
+            this.client.getTextureManager().destroyTexture(textureId);
+            MOD.metrics().untrackTexture(textureId);
+        });
+        this.textures.clear();
         super.close();
     }
 
@@ -216,25 +391,189 @@ public class WikiSearchScreen extends Screen {
         return this.lastSearchTerm;
     }
 
-    private Optional<SequencedSet<Suggestion>> fetchSuggestions(String apiUrl, String term) {
+    private Optional<SequencedSet<Suggestion>> fetchSuggestions(WikiIndividual wiki, String apiUrl, String term,
+                                                                boolean answeredLocally) {
+        return this.fetchSuggestions(wiki, apiUrl, term, answeredLocally, false);
+    }
+
+    private Optional<SequencedSet<Suggestion>> fetchSuggestions(WikiIndividual wiki, String apiUrl, String term,
+                                                                boolean answeredLocally, boolean fannedOut) {
         if (term.isEmpty()) {
             return Optional.empty();
         }
         try {
-            return debouncer.get(apiUrl + term, () -> {
-                URI uri = HttpUtil.uriWithQuery(URI.create(apiUrl), String.format(SUGGESTION_URL, term));
+            URI apiUri = URI.create(apiUrl);
+            String host = apiUri.getHost();
+            Callable<SequencedSet<Suggestion>> request = () -> {
+                URI uri = HttpUtil.uriWithQuery(apiUri, String.format(SUGGESTION_URL, term));
+
+                var suggestions = HttpUtil.request(uri, body -> Suggestion.fromPrefixSearch(
+                        new InputStreamReader(body, StandardCharsets.UTF_8)));
+                // Redirects are only resolved to their target here, since their section is not known.
+                for (Suggestion suggestion : suggestions) {
+                    suggestion.url().ifPresent(url -> CanonicalTitles.put(
+                            wiki, suggestion.redirectsTo().orElse(suggestion.title()), url, null));
+                }
+                return suggestions;
+            };
+            return debouncer.get(new SearchKey(apiUrl, term), host, answeredLocally,
+                                 fannedOut && host != null
+                                         ? () -> HostLimiter.of(host).runFannedOut(request)
+                                         : request);
+        } catch (Exception e) {
+            if (e.getCause() instanceof HostUnavailableException unavailable) {
+                LOGGER.debug("Skipped getting suggestions: {}", unavailable.getMessage());
+            } else {
+                LOGGER.warn("Failed to get suggestions", e);
+            }
+            return Optional.empty();
+        }
+    }
 
-                String response = HttpUtil.request(uri);
-//                System.out.println(uri);
-//                System.out.println(response);
+    /**
+     * Requests the images of the shown suggestions, the first {@value #VISIBLE_ROWS} before the rest. Requests for
+     * images that are no longer shown are cancelled.
+     */
+    private void requestImages(SequencedSet<Suggestion> suggestions) {
+        Set<String> urls = new HashSet<>();
+        int row = 0;
+        for (Suggestion suggestion : suggestions) {
+            var priority = row++ < VISIBLE_ROWS ? ImageLoader.Priority.VISIBLE : ImageLoader.Priority.PREFETCH;
+            suggestion.imageUrl().ifPresent(imageUrl -> {
+                urls.add(imageUrl);
+                this.fetchImage(imageUrl, priority);
+            });
+        }
+
+        this.imageRequests.entrySet().removeIf(entry -> {
+            if (urls.contains(entry.getKey())) return false;
+            entry.getValue().cancel(true);
+            return true;
+        });
+    }
+
+    private void fetchImage(String imageUrl, ImageLoader.Priority priority) {
+        var textureId = textureIdOf(imageUrl);
+        if (this.textures.contains(textureId) || this.imageRequests.containsKey(imageUrl)) return;
+
+        var request = this.tasks.track(MOD.imageLoader().load(imageUrl, priority));
+        this.imageRequests.put(imageUrl, request);
+        request.whenComplete((image, throwable) -> this.tasks.execute(
+                () -> this.imageRequests.remove(imageUrl, request)));
+        request.thenAcceptAsync(imageArray -> {
+            if (imageArray != null) this.loadImage(textureId, imageArray);
+        }, HeyWikiExecutors.cpu());
+    }
 
+    /**
+     * Moves the image of a suggestion to the front of the download queue. Called when its row is rendered.
+     *
+     * @param suggestion The suggestion.
+     */
+    public void prioritizeImage(Suggestion suggestion) {
+        suggestion.imageUrl().ifPresent(imageUrl -> {
+            if (this.imageRequests.containsKey(imageUrl)) {
+                MOD.imageLoader().prioritize(imageUrl, ImageLoader.Priority.VISIBLE);
+            }
+        });
+    }
+
+    /**
+     * Gets the identifier of the texture of a suggestion image.
+     *
+     * @param imageUrl The URL of the image.
+     * @return The texture identifier.
+     */
+    public static Identifier textureIdOf(String imageUrl) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        String hash = Hex.encodeHexString(md.digest(imageUrl.getBytes(StandardCharsets.UTF_8)));
+
+        return Identifier.of("heywiki", hash);
+    }
+
+    private void loadImage(Identifier textureId, byte[] imageArray) {
+        try {
+            ImageEvent decodeEvent = ImageEvent.begin(ImageEvent.DECODE, textureId.toString());
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageArray));
+            decodeEvent.commit(image.getWidth(), image.getHeight());
+
+            ImageEvent cropEvent = ImageEvent.begin(ImageEvent.CROP, textureId.toString());
+            int size = Math.min(image.getWidth(), image.getHeight());
+            image = image.getSubimage((image.getWidth() - size) / 2, (image.getHeight() - size) / 2, size,
+                                      size);
+
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", os);
+            InputStream is = new ByteArrayInputStream(os.toByteArray());
+            NativeImage nativeImage = NativeImage.read(is);
+            cropEvent.commit(size, size);
+
+            // Textures are only registered while the screen is open, so that close() can destroy all of them.
+            // Rows look up their icon every frame, so the screen does not need to be rebuilt.
+            MOD.textureUploads().enqueue(textureId, nativeImage, this.tasks, () -> {
+                if (!this.textures.contains(textureId)) this.textures.add(textureId);
+            });
+        } catch (IOException e) {
+            LOGGER.error("Failed to load image", e);
+        }
+    }
+
+    public static void onClientTickPost(MinecraftClient client) {
+        while (openWikiSearchKey.wasPressed()) {
+            client.setScreen(new WikiSearchScreen());
+        }
+    }
+
+    /**
+     * A search suggestion.
+     *
+     * @param title       The title to show, which is the redirect if the page was found through one.
+     * @param index       The position of the suggestion.
+     * @param redirectsTo The title of the page the suggestion redirects to.
+     * @param imageUrl    The URL of the page image.
+     * @param url         The URL of the page.
+     * @param family      The wiki family the suggestion was found in, if all wikis were searched.
+     */
+    public record Suggestion(String title, int index, Optional<String> redirectsTo, Optional<String> imageUrl,
+                             Optional<String> url, Optional<WikiFamily> family)
+            implements Comparable<Suggestion> {
+        /**
+         * Parses the suggestions from a {@code generator=prefixsearch} query response.
+         *
+         * @param response The response body.
+         * @return The suggestions, ordered by their index.
+         */
+        public static SequencedSet<Suggestion> fromPrefixSearch(String response) {
+            return fromPrefixSearch(new StringReader(response), response.length());
+        }
+
+        /**
+         * Parses the suggestions from a {@code generator=prefixsearch} query response as it is read.
+         *
+         * @param response The reader of the response body.
+         * @return The suggestions, ordered by their index.
+         */
+        public static SequencedSet<Suggestion> fromPrefixSearch(Reader response) {
+            return fromPrefixSearch(response, -1);
+        }
+
+        private static SequencedSet<Suggestion> fromPrefixSearch(Reader response, int length) {
+            JsonDecodeEvent event = new JsonDecodeEvent();
+            event.type = "prefixsearch";
+            event.length = length;
+            event.begin();
+
+            try {
                 SequencedSet<Suggestion> suggestions = new TreeSet<>();
-                JsonObject root = JsonParser.parseString(response).getAsJsonObject();
+                JsonObject root = JsonParser.parseReader(response).getAsJsonObject();
                 @Nullable JsonObject query = root.getAsJsonObject("query");
 
-                if (query == null) {
-                    return suggestions;
-                }
+                if (query == null) return suggestions;
 
                 @Nullable JsonArray redirects = query.getAsJsonArray("redirects");
                 Map<String, Suggestion> redirectMap = redirects != null
@@ -245,7 +584,8 @@ public class WikiSearchScreen extends Screen {
                             int index = redirect.get("index").getAsInt();
                             String from = redirect.get("from").getAsString();
                             String to = redirect.get("to").getAsString();
-                            return new Suggestion(from, index, Optional.of(to), Optional.empty());
+                            return new Suggestion(from, index, Optional.of(to), Optional.empty(), Optional.empty(),
+                                                  Optional.empty());
                         })
                         .collect(Collectors.toMap((redirect) -> redirect.redirectsTo().orElseThrow(),
                                                   suggestion -> suggestion,
@@ -263,74 +603,117 @@ public class WikiSearchScreen extends Screen {
                                 String imageUrl = page.has("thumbnail") ?
                                         page.getAsJsonObject("thumbnail").get("source").getAsString()
                                         : null;
+                                Optional<String> url = page.has("fullurl")
+                                        ? Optional.of(page.get("fullurl").getAsString())
+                                        : Optional.empty();
 
                                 if (redirectMap.containsKey(title)) {
                                     var redirect = redirectMap.get(title);
                                     return new Suggestion(redirect.title(), index, Optional.of(title),
-                                                          Optional.ofNullable(imageUrl));
+                                                          Optional.ofNullable(imageUrl), url, Optional.empty());
                                 }
 
                                 return new Suggestion(title, index, Optional.empty(),
-                                                      Optional.ofNullable(imageUrl));
+                                                      Optional.ofNullable(imageUrl), url, Optional.empty());
                             }).forEach(suggestions::add);
                 }
 
-                suggestions.forEach(this::fetchImage);
-
+                event.results = suggestions.size();
                 return suggestions;
-            });
-        } catch (Exception e) {
-            LOGGER.warn("Failed to get suggestions", e);
-            return Optional.empty();
-        }
-    }
-
-    private void fetchImage(Suggestion suggestion) {
-        suggestion.imageUrl().ifPresent(imageUrl -> CompletableFuture.runAsync(() -> {
-            MessageDigest md;
-            try {
-                md = MessageDigest.getInstance("SHA-1");
-            } catch (NoSuchAlgorithmException e) {
-                throw new RuntimeException(e);
+            } finally {
+                event.commit();
             }
-            String hash = Hex.encodeHexString(md.digest(imageUrl.getBytes(StandardCharsets.UTF_8)));
+        }
 
-            var textureId = Identifier.of("heywiki", hash);
-            this.executor.execute(() -> this.textures.add(textureId));
-            byte[] imageArray = HttpUtil.loadAndCacheFile(imageUrl).join();
+        /**
+         * Copies the suggestion to another position.
+         *
+         * @param index The new position.
+         * @return The copy.
+         */
+        public Suggestion withIndex(int index) {
+            return new Suggestion(title, index, redirectsTo, imageUrl, url, family);
+        }
 
-            try {
-                BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageArray));
+        /**
+         * Copies the suggestion with the wiki family it was found in.
+         *
+         * @param family The wiki family.
+         * @return The copy.
+         */
+        public Suggestion withFamily(WikiFamily family) {
+            return new Suggestion(title, index, redirectsTo, imageUrl, url, Optional.of(family));
+        }
 
-                int size = Math.min(image.getWidth(), image.getHeight());
-                image = image.getSubimage((image.getWidth() - size) / 2, (image.getHeight() - size) / 2, size,
-                                          size);
+        @Override public int compareTo(@NotNull Suggestion o) {
+            return Integer.compare(index, o.index);
+        }
+    }
 
-                ByteArrayOutputStream os = new ByteArrayOutputStream();
-                ImageIO.write(image, "png", os);
-                InputStream is = new ByteArrayInputStream(os.toByteArray());
+    /**
+     * The key of a search for suggestions. Searches for the same term on several wikis share their debounce.
+     *
+     * @param apiUrl The URL of the MediaWiki API.
+     * @param term   The search term.
+     */
+    private record SearchKey(String apiUrl, String term) {
+    }
 
-                NativeImageBackedTexture texture = new NativeImageBackedTexture(NativeImage.read(is));
-                assert this.client != null;
+    /**
+     * A search of all wikis for one term, whose results arrive one wiki at a time.
+     */
+    private final class FanOut {
+        private final String term;
+        private final List<WikiFamily> families;
+        private final Map<WikiFamily, SequencedSet<Suggestion>> results = new HashMap<>();
+        private final List<Suggestion> shown = new ArrayList<>();
+        private boolean deadlinePassed = false;
+
+        private FanOut(String term, List<WikiFamily> families) {
+            this.term = term;
+            this.families = families;
+        }
 
-                this.client.getTextureManager().registerTexture(textureId, texture);
-                this.executor.execute(this::init);
-            } catch (IOException e) {
-                LOGGER.error("Failed to load image", e);
+        private void arrive(WikiFamily family, SequencedSet<Suggestion> suggestions) {
+            this.results.put(family, suggestions);
+            if (this.deadlinePassed) {
+                // Stragglers are appended, so that the rows already shown stay in place.
+                this.shown.addAll(this.merge(Map.of(family, suggestions)));
+                WikiSearchScreen.this.showSuggestions(renumber(this.shown));
+            } else if (this.results.size() == this.families.size()) {
+                this.passDeadline();
             }
-        }, Util.getDownloadWorkerExecutor()));
-    }
+        }
 
-    public static void onClientTickPost(MinecraftClient client) {
-        while (openWikiSearchKey.wasPressed()) {
-            client.setScreen(new WikiSearchScreen());
+        private void passDeadline() {
+            if (this.deadlinePassed) return;
+            this.deadlinePassed = true;
+            this.shown.addAll(this.merge(this.results));
+            // If no wiki has answered yet, the previous suggestions stay until one does.
+            if (!this.shown.isEmpty() || this.results.size() == this.families.size()) {
+                WikiSearchScreen.this.showSuggestions(renumber(this.shown));
+            }
         }
-    }
 
-    public record Suggestion(String title, int index, Optional<String> redirectsTo, Optional<String> imageUrl)
-            implements Comparable<Suggestion> {
-        @Override public int compareTo(@NotNull Suggestion o) {
-            return Integer.compare(index, o.index);
+        /**
+         * Merges the results of several wikis by relevance. A title that matches the term exactly comes first, then
+         * the suggestions are interleaved by their position in the results of their wiki, and ties are broken by the
+         * order of the families.
+         */
+        private List<Suggestion> merge(Map<WikiFamily, SequencedSet<Suggestion>> results) {
+            List<Suggestion> merged = new ArrayList<>();
+            for (WikiFamily family : this.families) {
+                SequencedSet<Suggestion> suggestions = results.get(family);
+                if (suggestions == null) continue;
+                int position = 0;
+                for (Suggestion suggestion : suggestions) {
+                    int relevance = suggestion.title().equalsIgnoreCase(this.term) ? -1 : position;
+                    merged.add(suggestion.withFamily(family).withIndex(relevance));
+                    position++;
+                }
+            }
+            merged.sort(Comparator.naturalOrder());
+            return merged;
         }
     }
 }
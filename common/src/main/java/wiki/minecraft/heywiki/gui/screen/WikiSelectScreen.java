@@ -8,9 +8,9 @@ import net.minecraft.client.gui.widget.ButtonWidget;
 import net.minecraft.client.gui.widget.DirectionalLayoutWidget;
 import net.minecraft.client.gui.widget.ThreePartsLayoutWidget;
 import net.minecraft.text.Text;
-import net.minecraft.util.Util;
 import org.lwjgl.glfw.GLFW;
 import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.util.HeyWikiExecutors;
 import wiki.minecraft.heywiki.wiki.WikiFamily;
 
 import java.util.function.Consumer;
@@ -61,7 +61,7 @@ public class WikiSelectScreen extends Screen {
         if (selected != null) {
             this.onSelection.accept(selected.wiki);
             MOD.config().setSearchDefaultWikiFamily(selected.wiki.id());
-            Util.getIoWorkerExecutor().execute(() -> MOD.config().save(false));
+            HeyWikiExecutors.io().execute(() -> MOD.config().save(false));
         }
         assert this.client != null;
         this.client.setScreen(this.parent);
@@ -10,14 +10,9 @@ import net.minecraft.text.Style;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.Language;
-import org.apache.commons.codec.binary.Hex;
 import org.jetbrains.annotations.Nullable;
 import wiki.minecraft.heywiki.gui.screen.WikiSearchScreen;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-
 public class SuggestionEntryWidget extends Entry<SuggestionEntryWidget> {
     public final WikiSearchScreen.Suggestion suggestion;
     protected final MinecraftClient client;
@@ -61,6 +56,8 @@ public class SuggestionEntryWidget extends Entry<SuggestionEntryWidget> {
             DrawContext.drawTexture(this.getIconTexture(), x + 22, y, 0.0F, 0.0F, iconSize, iconSize, iconSize,
                                     iconSize);
             RenderSystem.disableBlend();
+        } else {
+            this.list.parent.prioritizeImage(this.suggestion);
         }
 
         MutableText name;
@@ -85,18 +82,19 @@ public class SuggestionEntryWidget extends Entry<SuggestionEntryWidget> {
                                            x + 22 + iconSize + 3, y + 1 + 10,
                                            0xAAAAAA);
         });
+
+        // Suggestions from a search of all wikis are badged with their wiki.
+        suggestion.family().ifPresent(family -> {
+            Text badge = Text.translatable(family.getTranslationKey());
+            DrawContext.drawTextWithShadow(this.client.textRenderer, badge,
+                                           x + rowWidth - this.client.textRenderer.getWidth(badge), y + 1 + 10,
+                                           0x55FFFF);
+        });
     }
 
     public @Nullable Identifier getIconTexture() {
         return this.suggestion.imageUrl().map((imageUrl) -> {
-            MessageDigest md;
-            try {
-                md = MessageDigest.getInstance("SHA-1");
-            } catch (NoSuchAlgorithmException e) {
-                throw new RuntimeException(e);
-            }
-            String hash = Hex.encodeHexString(md.digest(imageUrl.getBytes(StandardCharsets.UTF_8)));
-            var id = Identifier.of("heywiki", hash);
+            var id = WikiSearchScreen.textureIdOf(imageUrl);
 
             AbstractTexture texture = client.getTextureManager().getOrDefault(id, null);
             return texture != null ? id : null;
@@ -0,0 +1,19 @@
+package wiki.minecraft.heywiki.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for rewriting wiki links in a received chat message.
+ */
+@Name("heywiki.ChatLinks")
+@Label("Chat Link Rewriting")
+@Description("Replacing [[wiki links]] in a chat message")
+@Category({"HeyWiki", "Chat"})
+@StackTrace(false)
+public class ChatLinksEvent extends Event {
+    @Label("Characters")
+    public int length;
+
+    @Label("Links")
+    public int links;
+}
@@ -0,0 +1,28 @@
+package wiki.minecraft.heywiki.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for an HTTP request sent by {@link wiki.minecraft.heywiki.util.HttpUtil}.
+ */
+@Name("heywiki.HttpExchange")
+@Label("HTTP Exchange")
+@Description("An HTTP request to a wiki or an image host")
+@Category({"HeyWiki", "Network"})
+@StackTrace(false)
+public class HttpExchangeEvent extends Event {
+    @Label("URI")
+    public String uri;
+
+    @Label("Endpoint")
+    @Description("The API action, or \"file\" for other requests")
+    public String endpoint;
+
+    @Label("Status")
+    @Description("The HTTP status code, or 0 if the request failed")
+    public int status;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
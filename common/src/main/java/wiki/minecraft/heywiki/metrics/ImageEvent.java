@@ -0,0 +1,57 @@
+package wiki.minecraft.heywiki.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for one phase of turning a downloaded image into a texture.
+ */
+@Name("heywiki.Image")
+@Label("Image Processing")
+@Description("Decoding, cropping or uploading a wiki image")
+@Category({"HeyWiki", "Decode"})
+@StackTrace(false)
+public class ImageEvent extends Event {
+    public static final String DECODE = "decode";
+    public static final String CROP = "crop";
+    public static final String UPLOAD = "upload";
+
+    @Label("Phase")
+    @Description("decode, crop or upload")
+    public String phase;
+
+    @Label("Texture")
+    public String texture;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    /**
+     * Creates and begins an event.
+     *
+     * @param phase   The phase.
+     * @param texture The texture the image is for.
+     * @return The event.
+     */
+    public static ImageEvent begin(String phase, String texture) {
+        ImageEvent event = new ImageEvent();
+        event.phase = phase;
+        event.texture = texture;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commits the event with the size of the resulting image.
+     *
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     */
+    public void commit(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.commit();
+    }
+}
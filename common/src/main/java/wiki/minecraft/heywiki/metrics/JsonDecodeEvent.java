@@ -0,0 +1,24 @@
+package wiki.minecraft.heywiki.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for decoding a JSON response of the MediaWiki API.
+ */
+@Name("heywiki.JsonDecode")
+@Label("JSON Decode")
+@Description("Decoding a MediaWiki API response")
+@Category({"HeyWiki", "Decode"})
+@StackTrace(false)
+public class JsonDecodeEvent extends Event {
+    @Label("Response Type")
+    @Description("The kind of response, e.g. prefixsearch, opensearch or extracts")
+    public String type;
+
+    @Label("Characters")
+    @Description("The length of the response, or -1 if it was decoded while being downloaded")
+    public int length;
+
+    @Label("Results")
+    public int results;
+}
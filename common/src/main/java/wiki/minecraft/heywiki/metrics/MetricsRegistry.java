@@ -0,0 +1,404 @@
+package wiki.minecraft.heywiki.metrics;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import net.minecraft.client.texture.AbstractTexture;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.util.Identifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects counters, gauges and latency histograms about what the mod is doing, e.g. HTTP requests and caches.
+ *
+ * <p>Metrics are identified by a name and optional tags, which are given as alternating keys and values,
+ * e.g. {@code counter("http.requests", "host", "minecraft.wiki")}. All metrics are thread-safe.
+ *
+ * @see wiki.minecraft.heywiki.command.HeyWikiCommand
+ */
+public class MetricsRegistry {
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<Identifier, Long> textures = new ConcurrentHashMap<>();
+    private final Tracer tracer = new Tracer();
+
+    public MetricsRegistry() {
+        gauge("texture.count", this.textures::size);
+        gauge("texture.bytes", () -> this.textures.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    /**
+     * Gets the tracer for user interactions.
+     *
+     * @return The tracer.
+     */
+    public Tracer tracer() {
+        return tracer;
+    }
+
+    /**
+     * Gets or creates a counter.
+     *
+     * @param name The name of the counter.
+     * @param tags The tags, as alternating keys and values.
+     * @return The counter.
+     */
+    public Counter counter(String name, String... tags) {
+        return counters.computeIfAbsent(key(name, tags), k -> new Counter());
+    }
+
+    /**
+     * Gets or creates a latency histogram.
+     *
+     * @param name The name of the histogram.
+     * @param tags The tags, as alternating keys and values.
+     * @return The histogram.
+     */
+    public Histogram histogram(String name, String... tags) {
+        return histograms.computeIfAbsent(key(name, tags), k -> new Histogram());
+    }
+
+    /**
+     * Registers a gauge whose value is read when the metrics are displayed. Replaces any existing gauge.
+     *
+     * @param name     The name of the gauge.
+     * @param supplier The supplier of the value.
+     * @param tags     The tags, as alternating keys and values.
+     */
+    public void gauge(String name, LongSupplier supplier, String... tags) {
+        gauges.put(key(name, tags), supplier);
+    }
+
+    /**
+     * Records the hit, miss and eviction counters of a cache.
+     *
+     * @param cache The name of the cache.
+     * @return The counters of the cache.
+     */
+    public CacheCounters cache(String cache) {
+        return new CacheCounters(counter("cache.hits", "cache", cache),
+                                 counter("cache.misses", "cache", cache),
+                                 counter("cache.evictions", "cache", cache));
+    }
+
+    /**
+     * Tracks the memory used by a texture registered by the mod.
+     *
+     * @param id      The texture ID.
+     * @param texture The texture.
+     */
+    public void trackTexture(Identifier id, AbstractTexture texture) {
+        if (texture instanceof NativeImageBackedTexture nativeTexture) {
+            NativeImage image = nativeTexture.getImage();
+            if (image == null) return;
+            textures.put(id, (long) image.getWidth() * image.getHeight() * image.getFormat().getChannelCount());
+        }
+    }
+
+    /**
+     * Stops tracking a texture, should be called when it is destroyed.
+     *
+     * @param id The texture ID.
+     */
+    public void untrackTexture(Identifier id) {
+        textures.remove(id);
+    }
+
+    /**
+     * Gets the current value of a counter or gauge.
+     *
+     * @param name The name of the metric.
+     * @param tags The tags, as alternating keys and values.
+     * @return The value, or 0 if the metric does not exist.
+     */
+    public long value(String name, String... tags) {
+        String key = key(name, tags);
+        Counter counter = counters.get(key);
+        if (counter != null) return counter.get();
+        LongSupplier gauge = gauges.get(key);
+        return gauge != null ? gauge.getAsLong() : 0;
+    }
+
+    /**
+     * Creates a single line summary for the debug HUD.
+     *
+     * @return The summary.
+     */
+    public String debugLine() {
+        Histogram latency = new Histogram();
+        histograms.forEach((key, histogram) -> {
+            if (key.startsWith("http.latency{")) latency.merge(histogram);
+        });
+
+        return String.format(Locale.ROOT, "heywiki stats: %d req (%d in flight), p50 %s, %s, %s tex",
+                             sum("http.requests"), value("http.in_flight"), formatMillis(latency.percentile(0.5)),
+                             formatBytes(sum("http.bytes")), formatBytes(value("texture.bytes")));
+    }
+
+    /**
+     * Creates a human-readable summary of all metrics.
+     *
+     * @return The lines of the summary.
+     */
+    public List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "HTTP: %d requests, %d errors, %d in flight, %s downloaded",
+                                sum("http.requests"), sum("http.errors"), value("http.in_flight"),
+                                formatBytes(sum("http.bytes"))));
+        new TreeMap<>(histograms).forEach((key, histogram) -> {
+            if (!key.startsWith("http.latency{")) return;
+            lines.add(String.format(Locale.ROOT, "  %s: %d, p50 %s, p99 %s, max %s",
+                                    key.substring("http.latency".length()), histogram.count(),
+                                    formatMillis(histogram.percentile(0.5)), formatMillis(histogram.percentile(0.99)),
+                                    formatMillis(histogram.max())));
+        });
+
+        StringBuilder caches = new StringBuilder("Caches:");
+        new TreeMap<>(counters).forEach((key, counter) -> {
+            if (!key.startsWith("cache.hits{cache=")) return;
+            String cache = key.substring("cache.hits{cache=".length(), key.length() - 1);
+            long hits = counter.get();
+            long misses = value("cache.misses", "cache", cache);
+            long total = hits + misses;
+            caches.append(String.format(Locale.ROOT, " %s %d%% of %d (%d evicted)", cache,
+                                        total == 0 ? 0 : hits * 100 / total, total,
+                                        value("cache.evictions", "cache", cache)));
+        });
+        lines.add(caches.toString());
+
+        lines.add(String.format(Locale.ROOT, "Textures: %d, %s", value("texture.count"),
+                                formatBytes(value("texture.bytes"))));
+
+        StringBuilder reloads = new StringBuilder("Reload:");
+        new TreeMap<>(histograms).forEach((key, histogram) -> {
+            if (!key.startsWith("reload.duration{manager=")) return;
+            reloads.append(String.format(Locale.ROOT, " %s %s",
+                                         key.substring("reload.duration{manager=".length(), key.length() - 1),
+                                         formatMillis(histogram.last())));
+        });
+        lines.add(reloads.toString());
+
+        return lines;
+    }
+
+    /**
+     * Creates a JSON representation of all metrics.
+     *
+     * @return The JSON object.
+     */
+    public JsonObject toJson() {
+        JsonObject root = new JsonObject();
+
+        JsonObject counters = new JsonObject();
+        new TreeMap<>(this.counters).forEach((key, counter) -> counters.addProperty(key, counter.get()));
+        root.add("counters", counters);
+
+        JsonObject gauges = new JsonObject();
+        new TreeMap<>(this.gauges).forEach((key, gauge) -> gauges.addProperty(key, gauge.getAsLong()));
+        root.add("gauges", gauges);
+
+        JsonObject histograms = new JsonObject();
+        new TreeMap<>(this.histograms).forEach((key, histogram) -> histograms.add(key, histogram.toJson()));
+        root.add("histograms", histograms);
+
+        root.add("traces", tracer.toJson());
+
+        return root;
+    }
+
+    /**
+     * Writes all metrics as JSON.
+     *
+     * @param path The path to write to.
+     * @throws IOException If the file cannot be written.
+     */
+    public void dump(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Files.writeString(path, new GsonBuilder().setPrettyPrinting().create().toJson(toJson()));
+    }
+
+    private long sum(String name) {
+        String prefix = name + "{";
+        long sum = 0;
+        for (var entry : counters.entrySet()) {
+            if (entry.getKey().equals(name) || entry.getKey().startsWith(prefix)) sum += entry.getValue().get();
+        }
+        return sum;
+    }
+
+    private static String key(String name, String... tags) {
+        if (tags.length == 0) return name;
+        if (tags.length % 2 != 0) throw new IllegalArgumentException("Tags must be key-value pairs: " + name);
+
+        StringBuilder builder = new StringBuilder(name).append('{');
+        for (int i = 0; i < tags.length; i += 2) {
+            if (i > 0) builder.append(',');
+            builder.append(tags[i]).append('=').append(tags[i + 1]);
+        }
+        return builder.append('}').toString();
+    }
+
+    private static String formatMillis(long nanos) {
+        if (nanos < 0) return "-";
+        return String.format(Locale.ROOT, "%.1f ms", nanos / 1_000_000D);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024D);
+        return String.format(Locale.ROOT, "%.1f MiB", bytes / (1024D * 1024D));
+    }
+
+    /**
+     * A monotonically increasing count, or an up-down count for gauges like in-flight requests.
+     */
+    public static class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void decrement() {
+            value.decrement();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * The hit, miss and eviction counters of a cache.
+     *
+     * @param hits      Lookups answered by the cache.
+     * @param misses    Lookups that had to compute the value.
+     * @param evictions Values removed because of size or expiry.
+     */
+    public record CacheCounters(Counter hits, Counter misses, Counter evictions) {
+    }
+
+    /**
+     * A latency histogram with exponential buckets from 1 ms to about 33 s.
+     *
+     * <p>Percentiles are estimated as the upper bound of the bucket they fall into.
+     */
+    public static class Histogram {
+        private static final int BUCKETS = 16;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong(-1);
+        private final AtomicLong last = new AtomicLong(-1);
+
+        /**
+         * Records a duration.
+         *
+         * @param nanos The duration in nanoseconds.
+         */
+        public void record(long nanos) {
+            buckets.incrementAndGet(bucket(nanos));
+            count.increment();
+            sum.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+            last.set(nanos);
+        }
+
+        /**
+         * Records the time elapsed since a start time.
+         *
+         * @param startNanos The start time from {@link System#nanoTime()}.
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long max() {
+            return max.get();
+        }
+
+        /**
+         * Gets the most recently recorded duration.
+         *
+         * @return The duration in nanoseconds, or -1 if nothing was recorded.
+         */
+        public long last() {
+            return last.get();
+        }
+
+        /**
+         * Estimates a percentile.
+         *
+         * @param percentile The percentile, between 0 and 1.
+         * @return The estimated duration in nanoseconds, or -1 if nothing was recorded.
+         */
+        public long percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i <= BUCKETS; i++) total += buckets.get(i);
+            if (total == 0) return -1;
+
+            long rank = (long) Math.ceil(percentile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), max());
+            }
+            return max();
+        }
+
+        private void merge(Histogram other) {
+            for (int i = 0; i <= BUCKETS; i++) buckets.addAndGet(i, other.buckets.get(i));
+            count.add(other.count());
+            sum.add(other.sum.sum());
+            max.accumulateAndGet(other.max(), Math::max);
+        }
+
+        private JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("count", count());
+            json.addProperty("sum_ms", sum.sum() / 1_000_000D);
+            json.addProperty("max_ms", max() / 1_000_000D);
+            json.addProperty("p50_ms", percentile(0.5) / 1_000_000D);
+            json.addProperty("p90_ms", percentile(0.9) / 1_000_000D);
+            json.addProperty("p99_ms", percentile(0.99) / 1_000_000D);
+
+            JsonArray buckets = new JsonArray();
+            for (int i = 0; i <= BUCKETS; i++) buckets.add(this.buckets.get(i));
+            json.add("buckets", buckets);
+            return json;
+        }
+
+        private static int bucket(long nanos) {
+            long millis = Math.max(nanos / 1_000_000, 0);
+            int bucket = 64 - Long.numberOfLeadingZeros(millis);
+            return Math.min(bucket, BUCKETS);
+        }
+
+        private static long upperBound(int bucket) {
+            return (1L << bucket) * 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package wiki.minecraft.heywiki.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for a phase of a resource reload of one of the mod's managers.
+ */
+@Name("heywiki.ReloadPhase")
+@Label("Reload Phase")
+@Description("A phase of reloading wiki families, translations or the link table")
+@Category({"HeyWiki", "Reload"})
+@StackTrace(false)
+public class ReloadPhaseEvent extends Event {
+    @Label("Manager")
+    public String manager;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Entries")
+    @Description("The number of entries loaded in this phase")
+    public int entries;
+
+    /**
+     * Creates and begins an event.
+     *
+     * @param manager The manager that is reloading.
+     * @param phase   The phase.
+     * @return The event.
+     */
+    public static ReloadPhaseEvent begin(String manager, String phase) {
+        ReloadPhaseEvent event = new ReloadPhaseEvent();
+        event.manager = manager;
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commits the event with the number of entries loaded.
+     *
+     * @param entries The number of entries.
+     */
+    public void commit(int entries) {
+        this.entries = entries;
+        this.commit();
+    }
+}
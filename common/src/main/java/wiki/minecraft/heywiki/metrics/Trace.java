@@ -0,0 +1,132 @@
+package wiki.minecraft.heywiki.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A timeline of spans for one user interaction, e.g. from pressing the wiki key to showing the page preview.
+ *
+ * <p>Spans can be recorded from any thread. Work that continues on another thread should capture the trace with
+ * {@link Tracer#current()} and either record spans on it directly or make it current with {@link #makeCurrent()}.
+ *
+ * @see Tracer
+ */
+public class Trace {
+    /**
+     * A trace that records nothing, used when there is no interaction being traced.
+     */
+    public static final Trace NONE = new Trace(null, 0, "none");
+    private static final int MAX_SPANS = 256;
+
+    private final Tracer tracer;
+    private final long id;
+    private final String name;
+    private final long startNanos = System.nanoTime();
+    private final List<SpanRecord> spans = new ArrayList<>();
+
+    Trace(Tracer tracer, long id, String name) {
+        this.tracer = tracer;
+        this.id = id;
+        this.name = name;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long startNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Starts a span, which ends when it is closed.
+     *
+     * @param name The name of the span.
+     * @return The span.
+     */
+    public Span span(String name) {
+        if (this == NONE) return Span.NONE;
+        return new Span(this, name);
+    }
+
+    /**
+     * Makes this trace current on this thread until the returned scope is closed.
+     *
+     * @return The scope.
+     */
+    public Scope makeCurrent() {
+        if (this == NONE) return () -> {};
+        return tracer.makeCurrent(this);
+    }
+
+    /**
+     * Gets a snapshot of the spans recorded so far.
+     *
+     * @return The spans.
+     */
+    public List<SpanRecord> spans() {
+        synchronized (spans) {
+            return List.copyOf(spans);
+        }
+    }
+
+    private void add(SpanRecord span) {
+        synchronized (spans) {
+            if (spans.size() < MAX_SPANS) spans.add(span);
+        }
+    }
+
+    /**
+     * A scope in which a trace is current. Closing the scope restores the previous trace.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * A span that is being recorded. Closing it more than once has no effect.
+     */
+    public static class Span implements AutoCloseable {
+        private static final Span NONE = new Span(null, "none");
+        private final Trace trace;
+        private final String name;
+        private final long startNanos = System.nanoTime();
+        private boolean closed = false;
+
+        private Span(Trace trace, String name) {
+            this.trace = trace;
+            this.name = name;
+        }
+
+        @Override
+        public void close() {
+            if (trace == null) return;
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+            }
+
+            Thread thread = Thread.currentThread();
+            trace.add(new SpanRecord(name, thread.getName(), thread.threadId(), startNanos,
+                                     System.nanoTime() - startNanos));
+        }
+    }
+
+    /**
+     * A recorded span.
+     *
+     * @param name          The name of the span.
+     * @param thread        The name of the thread the span ended on.
+     * @param threadId      The ID of the thread the span ended on.
+     * @param startNanos    The start time from {@link System#nanoTime()}.
+     * @param durationNanos The duration.
+     */
+    public record SpanRecord(String name, String thread, long threadId, long startNanos, long durationNanos) {
+    }
+}
@@ -0,0 +1,161 @@
+package wiki.minecraft.heywiki.metrics;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records traces of user interactions and keeps the most recent ones.
+ *
+ * <p>A trace is started where an interaction begins, e.g. when the wiki key is pressed, and is current on that
+ * thread until its scope is closed. Code further down, such as {@link wiki.minecraft.heywiki.wiki.WikiPage} and
+ * {@link wiki.minecraft.heywiki.wiki.PageExcerpt}, records spans on {@link #current()} without knowing where the
+ * interaction came from.
+ *
+ * @see Trace
+ */
+public class Tracer {
+    private static final int CAPACITY = 32;
+    private final ThreadLocal<Trace> current = ThreadLocal.withInitial(() -> Trace.NONE);
+    private final ArrayDeque<Trace> traces = new ArrayDeque<>(CAPACITY);
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /**
+     * Starts a new trace and makes it current on this thread. The trace has a root span that ends with the scope.
+     *
+     * @param name The name of the interaction.
+     * @return The scope of the trace.
+     */
+    public Trace.Scope startTrace(String name) {
+        Trace trace = new Trace(this, nextId.getAndIncrement(), name);
+        synchronized (traces) {
+            if (traces.size() == CAPACITY) traces.removeFirst();
+            traces.addLast(trace);
+        }
+
+        Trace.Scope scope = makeCurrent(trace);
+        Trace.Span root = trace.span(name);
+        return () -> {
+            root.close();
+            scope.close();
+        };
+    }
+
+    /**
+     * Gets the trace that is current on this thread.
+     *
+     * @return The current trace, or {@link Trace#NONE} if there is none.
+     */
+    public Trace current() {
+        return current.get();
+    }
+
+    Trace.Scope makeCurrent(Trace trace) {
+        Trace previous = current.get();
+        current.set(trace);
+        return () -> current.set(previous);
+    }
+
+    /**
+     * Gets the most recent traces, oldest first.
+     *
+     * @return The traces.
+     */
+    public List<Trace> traces() {
+        synchronized (traces) {
+            return List.copyOf(traces);
+        }
+    }
+
+    /**
+     * Writes the most recent traces in the Chrome trace event format, which can be opened in {@code about:tracing}
+     * or Perfetto. Every trace is shown as its own process.
+     *
+     * @param path The path to write to.
+     * @throws IOException If the file cannot be written.
+     */
+    public void export(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path);
+             JsonWriter jsonWriter = new JsonWriter(writer)) {
+            jsonWriter.beginObject();
+            jsonWriter.name("displayTimeUnit").value("ms");
+            jsonWriter.name("traceEvents").beginArray();
+            for (Trace trace : traces()) {
+                writeMetadata(jsonWriter, trace.id(), 0, "process_name", "#" + trace.id() + " " + trace.name());
+
+                Map<Long, String> threads = new HashMap<>();
+                for (Trace.SpanRecord span : trace.spans()) {
+                    threads.putIfAbsent(span.threadId(), span.thread());
+
+                    jsonWriter.beginObject();
+                    jsonWriter.name("name").value(span.name());
+                    jsonWriter.name("cat").value("heywiki");
+                    jsonWriter.name("ph").value("X");
+                    jsonWriter.name("ts").value(span.startNanos() / 1000D);
+                    jsonWriter.name("dur").value(span.durationNanos() / 1000D);
+                    jsonWriter.name("pid").value(trace.id());
+                    jsonWriter.name("tid").value(span.threadId());
+                    jsonWriter.name("args").beginObject()
+                              .name("offset_ms").value((span.startNanos() - trace.startNanos()) / 1_000_000D)
+                              .endObject();
+                    jsonWriter.endObject();
+                }
+
+                for (var thread : threads.entrySet()) {
+                    writeMetadata(jsonWriter, trace.id(), thread.getKey(), "thread_name", thread.getValue());
+                }
+            }
+            jsonWriter.endArray();
+            jsonWriter.endObject();
+        }
+    }
+
+    /**
+     * Creates a JSON summary of the most recent traces, with span durations in milliseconds.
+     *
+     * @return The JSON array.
+     */
+    public JsonArray toJson() {
+        JsonArray array = new JsonArray();
+        for (Trace trace : traces()) {
+            JsonObject json = new JsonObject();
+            json.addProperty("id", trace.id());
+            json.addProperty("name", trace.name());
+            JsonArray spans = new JsonArray();
+            for (Trace.SpanRecord span : trace.spans()) {
+                JsonObject spanJson = new JsonObject();
+                spanJson.addProperty("name", span.name());
+                spanJson.addProperty("thread", span.thread());
+                spanJson.addProperty("offset_ms", (span.startNanos() - trace.startNanos()) / 1_000_000D);
+                spanJson.addProperty("duration_ms", span.durationNanos() / 1_000_000D);
+                spans.add(spanJson);
+            }
+            json.add("spans", spans);
+            array.add(json);
+        }
+        return array;
+    }
+
+    private static void writeMetadata(JsonWriter writer, long pid, long tid, String name, String value)
+            throws IOException {
+        writer.beginObject();
+        writer.name("name").value(name);
+        writer.name("ph").value("M");
+        writer.name("pid").value(pid);
+        writer.name("tid").value(tid);
+        writer.name("args").beginObject().name("name").value(value).endObject();
+        writer.endObject();
+    }
+}
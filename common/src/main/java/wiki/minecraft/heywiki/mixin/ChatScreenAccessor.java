@@ -0,0 +1,12 @@
+package wiki.minecraft.heywiki.mixin;
+
+import net.minecraft.client.gui.screen.ChatInputSuggestor;
+import net.minecraft.client.gui.screen.ChatScreen;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(ChatScreen.class)
+public interface ChatScreenAccessor {
+    @Accessor("chatInputSuggestor")
+    ChatInputSuggestor getChatInputSuggestor();
+}
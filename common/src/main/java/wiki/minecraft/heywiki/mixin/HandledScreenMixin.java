@@ -2,21 +2,34 @@ package wiki.minecraft.heywiki.mixin;
 
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.ingame.HandledScreen;
+import net.minecraft.screen.ScreenHandler;
 import net.minecraft.screen.slot.Slot;
 import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import wiki.minecraft.heywiki.HeyWikiClient;
 import wiki.minecraft.heywiki.wiki.target.Target;
-import wiki.minecraft.heywiki.wiki.WikiPage;
+import wiki.minecraft.heywiki.wiki.WikiPageBatch;
+
+import java.util.Comparator;
 
 import static wiki.minecraft.heywiki.wiki.WikiPage.NO_FAMILY_MESSAGE;
 
 @Mixin(HandledScreen.class)
 public class HandledScreenMixin extends ScreenMixin {
+    /**
+     * How many pages of the slots around the focused one are prefetched when the wiki key is pressed.
+     */
+    @Unique
+    private static final int PREFETCH_PAGES = 8;
+    @Shadow
+    @Final
+    protected ScreenHandler handler;
     @Shadow
     @Nullable
     protected Slot focusedSlot;
@@ -32,14 +45,31 @@ public class HandledScreenMixin extends ScreenMixin {
         if (HeyWikiClient.openWikiKey.matchesKey(keyCode, scanCode)) {
             Slot slot = this.focusedSlot;
             if (slot != null && slot.hasStack()) {
-                var target = Target.of(slot.getStack());
-                if (target != null) {
-                    var page = WikiPage.fromTarget(target);
-                    if (page == null) {
-                        MinecraftClient.getInstance().inGameHud.setOverlayMessage(NO_FAMILY_MESSAGE, false);
-                        return;
+                var tracer = HeyWikiClient.getInstance().metrics().tracer();
+                try (var ignored = tracer.startTrace("open_key_slot")) {
+                    Target target;
+                    try (var span = tracer.current().span("slot_target")) {
+                        target = Target.of(slot.getStack());
+                    }
+                    if (target != null) {
+                        // The slots are resolved together, nearest first, so that their pages can be prefetched.
+                        WikiPageBatch batch;
+                        try (var span = tracer.current().span("slot_batch")) {
+                            batch = WikiPageBatch.fromStacks(
+                                    this.handler.slots.stream()
+                                                      .sorted(Comparator.comparingInt(
+                                                              other -> Math.abs(other.id - slot.id)))
+                                                      .map(Slot::getStack)
+                                                      .toList());
+                        }
+                        var page = batch.get(target);
+                        if (page == null) {
+                            MinecraftClient.getInstance().inGameHud.setOverlayMessage(NO_FAMILY_MESSAGE, false);
+                            return;
+                        }
+                        page.openInBrowser(MinecraftClient.getInstance().currentScreen);
+                        batch.prefetchImages(PREFETCH_PAGES);
                     }
-                    page.openInBrowser(MinecraftClient.getInstance().currentScreen);
                 }
             }
         }
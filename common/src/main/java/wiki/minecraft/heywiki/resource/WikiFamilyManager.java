@@ -12,6 +12,8 @@ import net.minecraft.util.Identifier;
 import net.minecraft.util.profiler.Profiler;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.metrics.ReloadPhaseEvent;
 import wiki.minecraft.heywiki.wiki.WikiFamily;
 import wiki.minecraft.heywiki.wiki.WikiIndividual;
 
@@ -25,6 +27,7 @@ import java.util.stream.Collectors;
  */
 public class WikiFamilyManager extends JsonDataLoader {
     private static final Logger LOGGER = LogUtils.getLogger();
+    private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
     private static final String PATH = "wiki_family";
     private static final Gson GSON = new Gson();
     private final BiMap<Identifier, WikiFamily> WIKI_FAMILY_MAP = HashBiMap.create();
@@ -157,8 +160,18 @@ public class WikiFamilyManager extends JsonDataLoader {
         return Collections.unmodifiableMap(this.activeWikis);
     }
 
+    @Override
+    protected Map<Identifier, JsonElement> prepare(ResourceManager manager, Profiler profiler) {
+        ReloadPhaseEvent event = ReloadPhaseEvent.begin("family", "read");
+        Map<Identifier, JsonElement> prepared = super.prepare(manager, profiler);
+        event.commit(prepared.size());
+        return prepared;
+    }
+
     @Override
     protected void apply(Map<Identifier, JsonElement> prepared, ResourceManager manager, Profiler profiler) {
+        long start = System.nanoTime();
+        ReloadPhaseEvent parseEvent = ReloadPhaseEvent.begin("family", "parse");
         WIKI_FAMILY_MAP.clear();
         prepared.forEach((key, value) -> {
             try {
@@ -169,7 +182,12 @@ public class WikiFamilyManager extends JsonDataLoader {
                 LOGGER.error("Failed to load wiki family config from {}", key, e);
             }
         });
+        parseEvent.commit(WIKI_FAMILY_MAP.size());
+
+        ReloadPhaseEvent resolveEvent = ReloadPhaseEvent.begin("family", "resolve_active_wikis");
         activeWikis = resolveActiveWikis();
+        resolveEvent.commit(activeWikis.size());
+        MOD.metrics().histogram("reload.duration", "manager", "family").recordSince(start);
 
         LOGGER.info("Loaded {} wiki families", WIKI_FAMILY_MAP.size());
     }
@@ -0,0 +1,247 @@
+package wiki.minecraft.heywiki.resource;
+
+import com.google.gson.stream.JsonWriter;
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.AbstractInt2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.effect.StatusEffect;
+import net.minecraft.item.Item;
+import net.minecraft.registry.DynamicRegistryManager;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.Registry;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.SynchronousResourceReloader;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.metrics.ReloadPhaseEvent;
+import wiki.minecraft.heywiki.wiki.WikiIndividual;
+import wiki.minecraft.heywiki.wiki.WikiPage;
+import wiki.minecraft.heywiki.wiki.target.IdentifierTarget;
+import wiki.minecraft.heywiki.wiki.target.PrecomputedTarget;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Manages a table of precomputed wiki links for every registry entry whose namespace has a wiki family.
+ *
+ * <p>The table is only built when {@link wiki.minecraft.heywiki.HeyWikiConfig#precomputeLinkTable()} is enabled.
+ * Static registries are resolved at resource reload, while dynamic registries (biomes and structures) are
+ * resolved when joining a world.
+ *
+ * @see PrecomputedTarget
+ */
+public class WikiLinkTableManager implements SynchronousResourceReloader {
+    private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
+    private static final MinecraftClient CLIENT = MinecraftClient.getInstance();
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private volatile Map<Identifier, Table> tables = Map.of();
+
+    public WikiLinkTableManager() {
+    }
+
+    /**
+     * Gets the precomputed target for a registry value.
+     *
+     * @param registry       The registry the value belongs to.
+     * @param value          The value.
+     * @param translationKey The translation key the target would be resolved from.
+     * @return The precomputed target, or {@code null} if the value is not in the table.
+     */
+    public <T> @Nullable PrecomputedTarget get(Registry<T> registry, T value, String translationKey) {
+        Table table = this.tables.get(registry.getKey().getValue());
+        if (table == null || table.registry() != registry) return null;
+
+        PrecomputedTarget target = table.links().get(registry.getRawId(value));
+        if (target == null || !target.translationKey().equals(translationKey)) return null;
+        return target;
+    }
+
+    /**
+     * Gets the precomputed target for a registry entry of a dynamic registry.
+     *
+     * @param registryEntry        The registry entry.
+     * @param translationKeyPrefix The translation key prefix.
+     * @return The precomputed target, or {@code null} if the entry is not in the table.
+     */
+    public @Nullable PrecomputedTarget get(RegistryEntry<?> registryEntry, String translationKeyPrefix) {
+        var key = registryEntry.getKey();
+        if (key.isEmpty()) return null;
+
+        Table table = this.tables.get(key.get().getRegistry());
+        if (table == null || !translationKeyPrefix.equals(table.translationKeyPrefix())) return null;
+
+        PrecomputedTarget target = table.links().get(rawIdOf(table.registry(), registryEntry.value()));
+        if (target == null || !target.identifier().equals(key.get().getValue())) return null;
+        return target;
+    }
+
+    /**
+     * Gets the number of precomputed links.
+     *
+     * @return The number of links.
+     */
+    public int size() {
+        return count(this.tables);
+    }
+
+    private static int count(Map<Identifier, Table> tables) {
+        return tables.values().stream().mapToInt(table -> table.links().size()).sum();
+    }
+
+    @Override
+    public void reload(ResourceManager manager) {
+        if (!MOD.config().precomputeLinkTable()) {
+            this.tables = Map.of();
+            return;
+        }
+
+        long start = System.nanoTime();
+        Map<Identifier, Table> tablesNew = new HashMap<>();
+        ReloadPhaseEvent staticEvent = ReloadPhaseEvent.begin("link_table", "static_registries");
+        put(tablesNew, build(Registries.BLOCK, Block::getTranslationKey, null));
+        put(tablesNew, build(Registries.ITEM, Item::getTranslationKey, null));
+        put(tablesNew, build(Registries.ENTITY_TYPE, EntityType::getTranslationKey, null));
+        put(tablesNew, build(Registries.STATUS_EFFECT, StatusEffect::getTranslationKey, null));
+        int staticLinks = count(tablesNew);
+        staticEvent.commit(staticLinks);
+        if (CLIENT.world != null) {
+            ReloadPhaseEvent dynamicEvent = ReloadPhaseEvent.begin("link_table", "dynamic_registries");
+            buildDynamic(tablesNew, CLIENT.world.getRegistryManager());
+            dynamicEvent.commit(count(tablesNew) - staticLinks);
+        }
+        this.tables = Map.copyOf(tablesNew);
+
+        MOD.metrics().histogram("reload.duration", "manager", "link_table").recordSince(start);
+        LOGGER.info("Precomputed {} wiki links in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Should be called at
+     * {@link dev.architectury.event.events.client.ClientPlayerEvent#CLIENT_PLAYER_JOIN ClientPlayerEvent#CLIENT_PLAYER_JOIN}.
+     */
+    public void onClientPlayerJoin() {
+        if (!MOD.config().precomputeLinkTable() || CLIENT.world == null) return;
+
+        Map<Identifier, Table> tablesNew = new HashMap<>(this.tables);
+        buildDynamic(tablesNew, CLIENT.world.getRegistryManager());
+        this.tables = Map.copyOf(tablesNew);
+    }
+
+    /**
+     * Should be called at
+     * {@link dev.architectury.event.events.client.ClientPlayerEvent#CLIENT_PLAYER_QUIT ClientPlayerEvent#CLIENT_PLAYER_QUIT}.
+     */
+    public void onClientPlayerQuit() {
+        Map<Identifier, Table> tablesNew = new HashMap<>(this.tables);
+        tablesNew.remove(RegistryKeys.BIOME.getValue());
+        tablesNew.remove(RegistryKeys.STRUCTURE.getValue());
+        this.tables = Map.copyOf(tablesNew);
+    }
+
+    /**
+     * Exports the table as JSON, e.g. for external tooling.
+     *
+     * @param path The path to write to.
+     * @throws IOException If the file cannot be written.
+     */
+    public void export(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path);
+             JsonWriter jsonWriter = new JsonWriter(writer)) {
+            jsonWriter.setIndent("  ");
+            jsonWriter.beginArray();
+            for (var entry : this.tables.entrySet()) {
+                for (PrecomputedTarget target : entry.getValue().links().values()) {
+                    jsonWriter.beginObject();
+                    jsonWriter.name("registry").value(entry.getKey().toString());
+                    jsonWriter.name("identifier").value(target.identifier().toString());
+                    jsonWriter.name("title").value(target.title());
+                    jsonWriter.name("uri").value(target.uri() != null ? target.uri().toString() : null);
+                    jsonWriter.endObject();
+                }
+            }
+            jsonWriter.endArray();
+        }
+    }
+
+    private static void buildDynamic(Map<Identifier, Table> tables, DynamicRegistryManager registryManager) {
+        registryManager.getOptional(RegistryKeys.BIOME)
+                       .ifPresent(registry -> put(tables, build(registry, null, "biome")));
+        registryManager.getOptional(RegistryKeys.STRUCTURE)
+                       .ifPresent(registry -> put(tables, build(registry, null, "structure")));
+    }
+
+    private static void put(Map<Identifier, Table> tables, Table table) {
+        tables.put(table.registry().getKey().getValue(), table);
+    }
+
+    /**
+     * Resolves every entry of a registry in parallel.
+     *
+     * @param registry             The registry.
+     * @param translationKey       The translation key getter, or {@code null} to use the prefix.
+     * @param translationKeyPrefix The translation key prefix, used when there is no translation key getter.
+     * @return The table for the registry.
+     */
+    private static <T> Table build(Registry<T> registry, @Nullable Function<T, String> translationKey,
+                                   @Nullable String translationKeyPrefix) {
+        Map<String, WikiIndividual> activeWikis = MOD.familyManager().activeWikis();
+
+        Int2ObjectMap<PrecomputedTarget> links =
+                IntStream.range(0, registry.size())
+                         .parallel()
+                         .mapToObj(rawId -> {
+                             T value = registry.get(rawId);
+                             if (value == null) return null;
+                             Identifier identifier = registry.getId(value);
+                             if (identifier == null) return null;
+                             WikiIndividual wiki = activeWikis.get(identifier.getNamespace());
+                             if (wiki == null) return null;
+
+                             String key = translationKey != null
+                                     ? translationKey.apply(value)
+                                     : identifier.toTranslationKey(translationKeyPrefix);
+                             String title = new IdentifierTarget(identifier, key).title();
+                             if (title == null) return null;
+                             WikiPage page = new WikiPage(title, wiki);
+
+                             return new AbstractInt2ObjectMap.BasicEntry<>(
+                                     rawId, new PrecomputedTarget(identifier, key, title, page, page.getUri()));
+                         })
+                         .filter(Objects::nonNull)
+                         .collect(Int2ObjectOpenHashMap<PrecomputedTarget>::new,
+                                  (map, entry) -> map.put(entry.getIntKey(), entry.getValue()),
+                                  Int2ObjectOpenHashMap::putAll);
+
+        return new Table(registry, translationKeyPrefix, Int2ObjectMaps.unmodifiable(links));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> int rawIdOf(Registry<T> registry, Object value) {
+        return registry.getRawId((T) value);
+    }
+
+    private record Table(Registry<?> registry, @Nullable String translationKeyPrefix,
+                         Int2ObjectMap<PrecomputedTarget> links) {
+    }
+}
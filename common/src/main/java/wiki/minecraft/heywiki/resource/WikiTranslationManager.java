@@ -12,6 +12,7 @@ import net.minecraft.util.Language;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.metrics.ReloadPhaseEvent;
 import wiki.minecraft.heywiki.mixin.TranslationStorageFactory;
 import wiki.minecraft.heywiki.wiki.WikiIndividual;
 
@@ -53,15 +54,24 @@ public class WikiTranslationManager implements SynchronousResourceReloader {
 
     @Override
     public void reload(ResourceManager manager) {
+        long start = System.nanoTime();
         Map<String, TranslationStorage> translationsNew = new HashMap<>();
-        for (String language : decideLanguage()) {
+        ReloadPhaseEvent languagesEvent = ReloadPhaseEvent.begin("translation", "languages");
+        Set<String> languages = decideLanguage();
+        for (String language : languages) {
             translationsNew.put(language, loadTranslation(language, manager, true));
         }
-        for (String language : MOD.familyManager().getLangOverride()) {
+        languagesEvent.commit(languages.size());
+
+        ReloadPhaseEvent overridesEvent = ReloadPhaseEvent.begin("translation", "overrides");
+        Set<String> overrides = MOD.familyManager().getLangOverride();
+        for (String language : overrides) {
             translationsNew.put(language, loadTranslation(language, manager, false));
         }
+        overridesEvent.commit(overrides.size());
 
         translations = translationsNew;
+        MOD.metrics().histogram("reload.duration", "manager", "translation").recordSince(start);
     }
 
     private Set<String> decideLanguage() {
@@ -2,68 +2,195 @@ package wiki.minecraft.heywiki.util;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.mojang.logging.LogUtils;
-import org.slf4j.Logger;
+import org.jetbrains.annotations.Nullable;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.metrics.MetricsRegistry;
 
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * A debouncer that caches the result of a callable for a certain amount of time.
  *
+ * <p>The wait before a request adapts to the user and the network. It keeps a moving average of the interval between
+ * calls, i.e. the typing cadence, and waits about one and a half intervals, after which the user has most likely
+ * paused. It never waits longer than the round-trip time of the host, since requests to a fast host are cheaper than
+ * waiting, nor longer than the configured maximum. When nothing can be shown until the request completes and no
+ * request is in flight, it does not wait at all.
+ *
+ * <p>Several keys can share an input, e.g. the same search term on several wikis. Such keys are requested together:
+ * they count as a single call towards the cadence, start from the same wait, and do not supersede each other.
+ *
  * @param <Key>   The key type.
  * @param <Value> The value type.
  * @see Cache
  */
 public class CachedDebouncer<Key, Value> {
-    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final double CADENCE_WEIGHT = 0.3;
     /**
-     * The timeout in milliseconds.
+     * Intervals longer than this are pauses, not typing, and do not count towards the cadence.
+     */
+    private static final long PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(1500);
+    private static final long INITIAL_CADENCE_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    /**
+     * The maximum wait in milliseconds.
      */
     public final long timeoutMillis;
-    private final Cache<Key, Value> cache = CacheBuilder.newBuilder()
-                                                        .maximumSize(100)
-                                                        .expireAfterAccess(10, TimeUnit.MINUTES)
-                                                        .build();
-    private volatile Key lastInput;
+    private final String name;
+    private final MetricsRegistry metricsRegistry;
+    private final MetricsRegistry.CacheCounters metrics;
+    private final Cache<Key, Value> cache;
+    private final Function<? super Key, ?> inputOf;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile Object lastInput;
+    private long lastCallAt = System.nanoTime() - PAUSE_NANOS;
+    private long cadence = INITIAL_CADENCE_NANOS;
+    private long inputWait = 0;
+
+    /**
+     * Creates a new debouncer with the given maximum wait.
+     *
+     * @param timeoutMillis The maximum wait in milliseconds.
+     * @param name          The name of the cache in metrics.
+     */
+    public CachedDebouncer(long timeoutMillis, String name) {
+        this(timeoutMillis, name, key -> key);
+    }
 
     /**
-     * Creates a new debouncer with the given timeout.
+     * Creates a new debouncer with the given maximum wait, whose keys may share an input.
      *
-     * @param timeoutMillis The timeout in milliseconds.
+     * @param timeoutMillis The maximum wait in milliseconds.
+     * @param name          The name of the cache in metrics.
+     * @param inputOf       Gets the input of a key, e.g. the search term of a search on a wiki.
      */
-    public CachedDebouncer(long timeoutMillis) {
+    public CachedDebouncer(long timeoutMillis, String name, Function<? super Key, ?> inputOf) {
         this.timeoutMillis = timeoutMillis;
+        this.inputOf = inputOf;
+        this.name = name;
+        this.metricsRegistry = HeyWikiClient.getInstance().metrics();
+        this.metrics = this.metricsRegistry.cache(name);
+        this.cache = CacheBuilder.newBuilder()
+                                 .maximumSize(100)
+                                 .expireAfterAccess(10, TimeUnit.MINUTES)
+                                 .removalListener(notification -> {
+                                     if (notification.wasEvicted()) this.metrics.evictions().increment();
+                                 })
+                                 .build();
+        this.metricsRegistry.gauge("debounce.cadence_ms", () -> {
+            synchronized (this) {
+                return TimeUnit.NANOSECONDS.toMillis(this.cadence);
+            }
+        }, "debouncer", name);
     }
 
     /**
-     * Gets the value for the given key, using the provider if the value is not cached.
+     * Gets the value for the given key if it is cached, without waiting. This does not count towards the metrics of
+     * the cache, so it can be used to look up related keys.
+     *
+     * @param key The key to get the value for.
+     * @return The value, or an empty optional if the value is not cached.
+     */
+    public Optional<Value> getIfPresent(Key key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    /**
+     * Gets the value for the given key, using the provider if the value is not cached. The wait only adapts to the
+     * typing cadence.
      *
      * @param key      The key to get the value for.
      * @param provider The provider to use if the value is not cached.
      * @return The value, or an empty optional if the value is not cached.
      * @throws ExecutionException If the provider throws an exception.
+     * @see #get(Object, String, boolean, Callable)
      */
     public Optional<Value> get(Key key, Callable<Value> provider) throws ExecutionException {
-        this.lastInput = key;
+        return get(key, null, true, provider);
+    }
+
+    /**
+     * Gets the value for the given key, using the provider if the value is not cached.
+     *
+     * @param key             The key to get the value for.
+     * @param host            The host the provider sends its request to, or {@code null} if unknown.
+     * @param answeredLocally Whether something is shown while waiting, e.g. earlier or locally filtered results.
+     * @param provider        The provider to use if the value is not cached.
+     * @return The value, or an empty optional if the value is not cached or a key with a newer input was requested
+     * meanwhile.
+     * @throws ExecutionException If the provider throws an exception.
+     */
+    public Optional<Value> get(Key key, @Nullable String host, boolean answeredLocally, Callable<Value> provider)
+            throws ExecutionException {
+        Object input = this.inputOf.apply(key);
+        long wait = this.recordCall(input, host, answeredLocally);
 
         var value = cache.getIfPresent(key);
         if (value != null) {
+            metrics.hits().increment();
+            this.decision("cached");
             return Optional.of(value);
         }
 
+        if (wait > 0) {
+            this.metricsRegistry.histogram("debounce.wait", "debouncer", this.name).record(wait);
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                // The caller is no longer interested, e.g. because its screen was closed.
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+
+            if (!input.equals(lastInput)) {
+                this.decision("superseded");
+                return Optional.empty();
+            }
+        }
+
+        this.decision(wait > 0 ? "waited" : "immediate");
+        this.inFlight.incrementAndGet();
         try {
-            Thread.sleep(timeoutMillis);
-        } catch (InterruptedException e) {
-            LOGGER.warn("Interrupted while waiting for debounce", e);
+            return Optional.of(cache.get(key, () -> {
+                metrics.misses().increment();
+                return provider.call();
+            }));
+        } finally {
+            this.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Updates the typing cadence with a call and picks how long to wait before it is sent.
+     */
+    private synchronized long recordCall(Object input, @Nullable String host, boolean answeredLocally) {
+        if (!Objects.equals(input, this.lastInput)) {
+            this.lastInput = input;
+            long now = System.nanoTime();
+            long interval = now - this.lastCallAt;
+            this.lastCallAt = now;
+            if (interval < PAUSE_NANOS) {
+                this.cadence += (long) ((interval - this.cadence) * CADENCE_WEIGHT);
+            }
+
+            // Nothing would be shown meanwhile, so waiting only makes the user wait, unless requests would pile up.
+            this.inputWait = !answeredLocally && this.inFlight.get() == 0 ? 0 : this.cadence * 3 / 2;
         }
 
-        if (!key.equals(lastInput)) {
-            return Optional.empty();
+        long wait = this.inputWait;
+        if (wait > 0 && host != null) {
+            long roundTrip = HostLimiter.of(host).roundTripNanos();
+            if (roundTrip >= 0) wait = Math.min(wait, roundTrip);
         }
+        return Math.clamp(wait, 0, TimeUnit.MILLISECONDS.toNanos(this.timeoutMillis));
+    }
 
-        return Optional.of(cache.get(key, provider));
+    private void decision(String decision) {
+        this.metricsRegistry.counter("debounce.decisions", "debouncer", this.name, "decision", decision).increment();
     }
 }
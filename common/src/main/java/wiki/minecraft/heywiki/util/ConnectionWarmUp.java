@@ -0,0 +1,86 @@
+package wiki.minecraft.heywiki.util;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.wiki.WikiIndividual;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Opens connections to the active wikis ahead of time, so that the first lookup of a session does not have to wait
+ * for DNS, TCP and TLS setup.
+ *
+ * <p>A cheap {@code action=query&meta=siteinfo} request is sent to every distinct host with a MediaWiki API. The
+ * connection then stays in the pool of {@link HttpUtil} for later requests. Hosts are warmed up at most once every
+ * few minutes, and hosts that are {@link HostLimiter#isAvailable(String) unavailable} are skipped.
+ */
+public class ConnectionWarmUp {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
+    private static final String SITEINFO_QUERY = "action=query&meta=siteinfo&siprop=general&format=json";
+    private static final long INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final Map<String, Long> warmedAt = new ConcurrentHashMap<>();
+    private static final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Warms up connections to the active wikis in the background, unless disabled in the config or already running.
+     */
+    public static void warmUp() {
+        if (!MOD.config().warmUpConnections() || !running.compareAndSet(false, true)) return;
+
+        Map<String, URI> hosts = new LinkedHashMap<>();
+        for (WikiIndividual wiki : MOD.familyManager().activeWikis().values()) {
+            wiki.mwApiUrl().ifPresent(apiUrl -> {
+                try {
+                    URI uri = URI.create(apiUrl);
+                    if (uri.getHost() != null) hosts.putIfAbsent(uri.getHost(), uri);
+                } catch (IllegalArgumentException e) {
+                    LOGGER.debug("Skipped warming up invalid API URL {}", apiUrl);
+                }
+            });
+        }
+
+        try {
+            HeyWikiExecutors.io().execute(() -> {
+                try {
+                    hosts.forEach(ConnectionWarmUp::warmUp);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // The executor is shut down while the game is stopping.
+            running.set(false);
+        }
+    }
+
+    private static void warmUp(String host, URI apiUrl) {
+        long now = System.nanoTime();
+        Long last = warmedAt.get(host);
+        if (last != null && now - last < INTERVAL_NANOS) return;
+        if (!HostLimiter.isAvailable(apiUrl.toString())) {
+            MOD.metrics().counter("http.warm_up", "host", host, "outcome", "skipped").increment();
+            return;
+        }
+
+        warmedAt.put(host, now);
+        try {
+            HttpUtil.request(HttpUtil.uriWithQuery(apiUrl, SITEINFO_QUERY),
+                             body -> body.transferTo(OutputStream.nullOutputStream()));
+            MOD.metrics().counter("http.warm_up", "host", host, "outcome", "ok").increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            MOD.metrics().counter("http.warm_up", "host", host, "outcome", "failed").increment();
+            LOGGER.debug("Failed to warm up connection to {}: {}", host, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package wiki.minecraft.heywiki.util;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executors for the mod's background work, kept apart from the game's worker pools so that wiki requests do
+ * not delay skin or resource downloads and the other way around.
+ *
+ * <ul>
+ *     <li>{@link #io()} runs blocking work, like HTTP requests and file access, on virtual threads.</li>
+ *     <li>{@link #cpu()} runs CPU-bound work, like JSON and image decoding, on a small pool of platform threads.</li>
+ * </ul>
+ *
+ * <p>Blocking work should not run on {@link #cpu()}, and results that are waited for should be chained with
+ * {@link java.util.concurrent.CompletableFuture} methods instead of joining on another executor's thread.
+ */
+public final class HeyWikiExecutors {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final ExecutorService IO = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("HeyWiki-IO-", 0).uncaughtExceptionHandler(HeyWikiExecutors::uncaught).factory());
+    private static final ThreadPoolExecutor CPU = createCpuExecutor();
+
+    private HeyWikiExecutors() {
+    }
+
+    /**
+     * Gets the executor for blocking I/O.
+     *
+     * @return The executor, which starts a new virtual thread for every task.
+     */
+    public static ExecutorService io() {
+        return IO;
+    }
+
+    /**
+     * Gets the executor for CPU-bound work.
+     *
+     * @return The executor, which is bounded to half of the available processors, at most 4.
+     */
+    public static ExecutorService cpu() {
+        return CPU;
+    }
+
+    /**
+     * Runs a task on an executor. Unlike {@link CompletableFuture#supplyAsync}, cancelling the returned future
+     * interrupts the task, which aborts blocking calls like {@link HttpUtil#request(java.net.URI)}.
+     *
+     * @param task     The task.
+     * @param executor The executor to run the task on.
+     * @return The result of the task.
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Callable<T> task, ExecutorService executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = executor.submit(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, throwable) -> {
+            if (result.isCancelled()) running.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * Stops accepting new tasks and interrupts the running ones. Should be called when the client is stopping.
+     */
+    public static void shutdown() {
+        IO.shutdownNow();
+        CPU.shutdownNow();
+    }
+
+    private static ThreadPoolExecutor createCpuExecutor() {
+        int threads = Math.clamp(Runtime.getRuntime().availableProcessors() / 2, 1, 4);
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "HeyWiki-Worker-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler(HeyWikiExecutors::uncaught);
+            return thread;
+        };
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static void uncaught(Thread thread, Throwable throwable) {
+        LOGGER.error("Uncaught exception in {}", thread.getName(), throwable);
+    }
+}
@@ -0,0 +1,259 @@
+package wiki.minecraft.heywiki.util;
+
+import wiki.minecraft.heywiki.HeyWikiClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the requests sent to a single host.
+ *
+ * <ul>
+ *     <li>A token bucket limits the request rate. Requests wait for a token if one becomes available soon, and
+ *     are rejected otherwise.</li>
+ *     <li>A host that asked to be left alone, with {@code Retry-After} or a {@code maxlag} error, is not contacted
+ *     until the given time has passed.</li>
+ *     <li>A circuit breaker opens after several consecutive connection failures or server errors. While it is open,
+ *     requests fail immediately. After a cool-down, a single request is let through to probe the host, and the
+ *     cool-down doubles every time the probe fails.</li>
+ * </ul>
+ *
+ * <p>Rejected requests throw {@link HostUnavailableException} without touching the network, so callers can fall
+ * back to cached data cheaply.
+ *
+ * <p>The limiter also keeps a moving average of the round-trip time of the host, which {@link CachedDebouncer} uses
+ * to decide how long to wait.
+ *
+ * <p>Requests that are part of a fan-out, like a search of all wikis, can also be
+ * {@link #runFannedOut(Callable) capped} to a few at a time per host, so that a fan-out never queues up many requests
+ * on the same host.
+ *
+ * @see HttpUtil#request(URI, HttpUtil.BodyReader)
+ */
+public class HostLimiter {
+    private static final Map<String, HostLimiter> hosts = new ConcurrentHashMap<>();
+    private static final double TOKENS_PER_SECOND = 5;
+    private static final double BURST = 10;
+    private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long MIN_COOL_DOWN_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long MAX_COOL_DOWN_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final double ROUND_TRIP_WEIGHT = 0.25;
+    private static final int MAX_FAN_OUT_REQUESTS = 2;
+
+    static {
+        HeyWikiClient.getInstance().metrics().gauge(
+                "http.unavailable_hosts",
+                () -> hosts.values().stream().filter(limiter -> !limiter.isAvailable()).count());
+    }
+
+    private final String host;
+    private double tokens = BURST;
+    private long refilledAt = System.nanoTime();
+    private long blockedUntil = 0;
+    private boolean blocked = false;
+    private int failures = 0;
+    private long coolDown = MIN_COOL_DOWN_NANOS;
+    private long openUntil = 0;
+    private State state = State.CLOSED;
+    private long roundTrip = -1;
+    private final Semaphore fanOutSlots = new Semaphore(MAX_FAN_OUT_REQUESTS, true);
+
+    private HostLimiter(String host) {
+        this.host = host;
+    }
+
+    /**
+     * Gets the limiter of a host.
+     *
+     * @param host The host.
+     * @return The limiter, created if needed.
+     */
+    public static HostLimiter of(String host) {
+        return hosts.computeIfAbsent(host, HostLimiter::new);
+    }
+
+    /**
+     * Checks whether requests to the host of a URL are currently let through. This is cheap and never touches the
+     * network, so it can be called every frame.
+     *
+     * @param url The URL.
+     * @return Whether the host is available, or {@code true} if it was never contacted.
+     */
+    public static boolean isAvailable(String url) {
+        String host;
+        try {
+            host = URI.create(url).getHost();
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+        if (host == null) return true;
+
+        HostLimiter limiter = hosts.get(host);
+        return limiter == null || limiter.isAvailable();
+    }
+
+    /**
+     * Checks whether requests to the host are currently let through.
+     *
+     * @return Whether the host is available.
+     */
+    public synchronized boolean isAvailable() {
+        long now = System.nanoTime();
+        if (this.blocked && now - this.blockedUntil < 0) return false;
+        return this.state == State.CLOSED || (this.state == State.OPEN && now - this.openUntil >= 0);
+    }
+
+    /**
+     * Takes a token for a request, waiting briefly if the bucket is empty. If the request probes a host whose circuit
+     * is open, the caller must record its outcome, or {@linkplain #recordAbandoned() abandon} it if it is never sent.
+     *
+     * @throws HostUnavailableException If the host is blocked, its circuit is open, or no token is available soon.
+     * @throws InterruptedException     If interrupted while waiting for a token.
+     */
+    public void acquire() throws HostUnavailableException, InterruptedException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (this.blocked) {
+                if (now - this.blockedUntil < 0) {
+                    throw this.reject("retry_after", this.blockedUntil - now);
+                }
+                this.blocked = false;
+            }
+
+            switch (this.state) {
+                case OPEN -> {
+                    if (now - this.openUntil < 0) throw this.reject("circuit_open", this.openUntil - now);
+                }
+                case PROBING -> throw this.reject("circuit_open", 0);
+                case CLOSED -> {
+                }
+            }
+
+            this.tokens = Math.min(BURST, this.tokens + (now - this.refilledAt) / 1e9 * TOKENS_PER_SECOND);
+            this.refilledAt = now;
+            wait = this.tokens >= 1 ? 0 : (long) ((1 - this.tokens) / TOKENS_PER_SECOND * 1e9);
+            if (wait > MAX_WAIT_NANOS) throw this.reject("rate_limited", wait);
+            // The token is taken now, so that requests waiting at the same time queue up behind each other.
+            this.tokens--;
+            // Only the request that got a token probes the host.
+            if (this.state == State.OPEN) this.state = State.PROBING;
+        }
+
+        if (wait == 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            this.recordAbandoned();
+            throw e;
+        }
+    }
+
+    /**
+     * Records a request that reached the host, even if it answered with a client error.
+     */
+    public synchronized void recordSuccess() {
+        this.failures = 0;
+        this.coolDown = MIN_COOL_DOWN_NANOS;
+        this.state = State.CLOSED;
+    }
+
+    /**
+     * Records a connection failure or server error. Opens the circuit after several consecutive failures.
+     */
+    public synchronized void recordFailure() {
+        this.failures++;
+        if (this.state == State.PROBING) {
+            this.coolDown = Math.min(this.coolDown * 2, MAX_COOL_DOWN_NANOS);
+            this.open();
+        } else if (this.failures >= FAILURE_THRESHOLD && this.state == State.CLOSED) {
+            this.open();
+        }
+    }
+
+    /**
+     * Records a request that was abandoned before it finished, e.g. because it was interrupted.
+     */
+    public synchronized void recordAbandoned() {
+        // Let the next request probe again instead of waiting for a cool-down.
+        if (this.state == State.PROBING) this.state = State.OPEN;
+    }
+
+    /**
+     * Records the time until the response headers of a request arrived.
+     *
+     * @param nanos The time in nanoseconds.
+     */
+    public synchronized void recordRoundTrip(long nanos) {
+        this.roundTrip = this.roundTrip < 0
+                ? nanos
+                : this.roundTrip + (long) ((nanos - this.roundTrip) * ROUND_TRIP_WEIGHT);
+    }
+
+    /**
+     * Gets the moving average of the round-trip time of the host.
+     *
+     * @return The round-trip time in nanoseconds, or {@code -1} if no request has completed yet.
+     */
+    public synchronized long roundTripNanos() {
+        return this.roundTrip;
+    }
+
+    /**
+     * Runs a request that is part of a fan-out, while at most {@value #MAX_FAN_OUT_REQUESTS} such requests to the host
+     * run at the same time. Waits for one of them to finish otherwise.
+     *
+     * @param request The request.
+     * @return The result of the request.
+     * @throws Exception If the request throws an exception, or {@link InterruptedException} if interrupted while
+     *                   waiting.
+     */
+    public <T> T runFannedOut(Callable<T> request) throws Exception {
+        if (!this.fanOutSlots.tryAcquire()) {
+            HeyWikiClient.getInstance().metrics().counter("http.fan_out_queued", "host", this.host).increment();
+            this.fanOutSlots.acquire();
+        }
+        try {
+            return request.call();
+        } finally {
+            this.fanOutSlots.release();
+        }
+    }
+
+    /**
+     * Stops sending requests to the host for a while, as requested by {@code Retry-After} or a {@code maxlag}
+     * error.
+     *
+     * @param duration How long to wait.
+     */
+    public synchronized void blockFor(Duration duration) {
+        long until = System.nanoTime() + duration.toNanos();
+        if (!this.blocked || until - this.blockedUntil > 0) this.blockedUntil = until;
+        this.blocked = true;
+        if (this.state == State.PROBING) this.state = State.CLOSED;
+    }
+
+    private void open() {
+        this.state = State.OPEN;
+        this.openUntil = System.nanoTime() + this.coolDown;
+        HeyWikiClient.getInstance().metrics().counter("http.circuit_opened", "host", this.host).increment();
+    }
+
+    private HostUnavailableException reject(String reason, long remainingNanos) {
+        HeyWikiClient.getInstance().metrics().counter("http.rejected", "host", this.host, "reason", reason)
+                     .increment();
+        return new HostUnavailableException(this.host, reason, Duration.ofNanos(remainingNanos));
+    }
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        PROBING
+    }
+}
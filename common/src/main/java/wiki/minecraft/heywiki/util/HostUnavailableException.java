@@ -0,0 +1,34 @@
+package wiki.minecraft.heywiki.util;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Thrown when a request is not sent because its host is rate limited, asked to be left alone, or unreachable.
+ *
+ * @see HostLimiter
+ */
+public class HostUnavailableException extends IOException {
+    private final Duration retryAfter;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param host       The host.
+     * @param reason     Why the request was not sent.
+     * @param retryAfter How long until requests may be sent again, or zero if unknown.
+     */
+    public HostUnavailableException(String host, String reason, Duration retryAfter) {
+        super(host + " is unavailable (" + reason + "), retry after " + retryAfter.toSeconds() + "s");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets how long until requests may be sent again.
+     *
+     * @return The duration, or zero if unknown.
+     */
+    public Duration retryAfter() {
+        return this.retryAfter;
+    }
+}
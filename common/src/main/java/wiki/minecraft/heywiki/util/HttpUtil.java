@@ -1,31 +1,56 @@
 package wiki.minecraft.heywiki.util;
 
+import com.google.common.io.CountingInputStream;
 import com.mojang.logging.LogUtils;
-import net.minecraft.util.Util;
-import org.apache.commons.codec.binary.Hex;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.metrics.HttpExchangeEvent;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.net.ProxySelector;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.IntUnaryOperator;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * A utility class for making HTTP requests.
  */
 public class HttpUtil {
     private final static Logger LOGGER = LogUtils.getLogger();
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(5);
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(10);
+    /**
+     * Shared by all requests, so that connections are pooled and reused. This also lets
+     * {@link ConnectionWarmUp} open connections ahead of time.
+     */
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+                                                            .proxy(ProxySelector.getDefault())
+                                                            .followRedirects(HttpClient.Redirect.ALWAYS)
+                                                            .connectTimeout(CONNECT_TIMEOUT)
+                                                            .build();
+    private static final SegmentStore FILE_CACHE =
+            new SegmentStore(Path.of(System.getProperty("java.io.tmpdir"), "heywiki", "thumbnails"), "thumbnail");
 
     /**
      * Sends a GET request to the given URI and returns the response body as a string.
@@ -34,46 +59,178 @@ public class HttpUtil {
      * @return The response body as a string.
      * @throws IOException          If an I/O error occurs.
      * @throws InterruptedException If the request is interrupted.
-     * @see HttpClient#send(HttpRequest, HttpResponse.BodyHandler)
-     * @see #request(URI, HttpResponse.BodyHandler)
+     * @see #request(URI, BodyReader)
      */
     public static @NotNull String request(URI uri) throws IOException, InterruptedException {
-        return request(uri, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        return request(uri, body -> new String(body.readAllBytes(), StandardCharsets.UTF_8));
     }
 
     /**
-     * Sends a GET request to the given URI and returns the response body using the given handler.
+     * Sends a GET request to the given URI and reads the response body with the given reader.
+     *
+     * <p>The request accepts gzip and deflate encoded responses, which are decompressed while they are read, so the
+     * reader always sees the plain body and can decode it as a stream.
+     *
+     * <p>Requests go through the {@link HostLimiter} of their host. Requests to a host that is rate limited, asked to
+     * be left alone or is unreachable fail immediately with a {@link HostUnavailableException}. Responses with
+     * {@code 429} or {@code 503} status or a {@code maxlag} error block the host for the time given in their
+     * {@code Retry-After} header.
      *
-     * @param uri     The URI to send the request to.
-     * @param handler The response body handler.
-     * @return The response body.
+     * @param uri    The URI to send the request to.
+     * @param reader The reader of the response body, which is called on the calling thread.
+     * @return The result of the reader.
      * @throws IOException          If an I/O error occurs.
      * @throws InterruptedException If the request is interrupted.
      * @see HttpClient#send(HttpRequest, HttpResponse.BodyHandler)
      * @see #request(URI)
      */
     @NotNull
-    public static <T> T request(URI uri, HttpResponse.BodyHandler<T> handler)
-            throws IOException, InterruptedException {
-        try (HttpClient client = HttpClient.newBuilder()
-                                           .proxy(ProxySelector.getDefault())
-                                           .followRedirects(HttpClient.Redirect.ALWAYS)
-                                           .build()) {
-            HttpRequest request = HttpRequest.newBuilder(uri)
-                                             .GET()
-                                             .header("User-Agent",
-                                                     "HeyWikiMod (+https://github.com/mc-wiki/minecraft-mod-heywiki)")
-                                             .build();
-
-            HttpResponse<T> response = client.send(request, handler);
-            if (response.statusCode() != 200) {
-                throw new IOException("HTTP " + response.statusCode() + " " + response.body());
+    public static <T> T request(URI uri, BodyReader<T> reader) throws IOException, InterruptedException {
+        String host = String.valueOf(uri.getHost());
+        HostLimiter limiter = HostLimiter.of(host);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                                         .GET()
+                                         .header("User-Agent",
+                                                 "HeyWikiMod (+https://github.com/mc-wiki/minecraft-mod-heywiki)")
+                                         .header("Accept-Encoding", "gzip, deflate")
+                                         .build();
+
+        String endpoint = endpointOf(uri);
+        HttpExchangeEvent event = new HttpExchangeEvent();
+        event.uri = uri.toString();
+        event.endpoint = endpoint;
+
+        // Whether the outcome of the request was recorded in the limiter. Otherwise, the request never reached the
+        // host, e.g. because it was interrupted, and the next request may probe the host again.
+        boolean recorded = false;
+        limiter.acquire();
+        try {
+            MOD.metrics().counter("http.in_flight").increment();
+            MOD.metrics().counter("http.requests", "host", host, "endpoint", endpoint).increment();
+            event.begin();
+            long start = System.nanoTime();
+            HttpResponse<InputStream> response;
+            try {
+                response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            } catch (IOException e) {
+                recorded = true;
+                limiter.recordFailure();
+                MOD.metrics().counter("http.errors", "host", host, "endpoint", endpoint).increment();
+                throw e;
             }
 
-            return response.body();
+            recorded = true;
+            limiter.recordRoundTrip(System.nanoTime() - start);
+            int status = response.statusCode();
+            event.status = status;
+
+            boolean maxlag = response.headers().firstValue("MediaWiki-API-Error").orElse("").equals("maxlag");
+            if (status == 429 || status == 503 || maxlag) {
+                limiter.blockFor(retryAfter(response));
+            } else if (status >= 500) {
+                limiter.recordFailure();
+            } else {
+                limiter.recordSuccess();
+            }
+
+            String encoding = response.headers().firstValue("Content-Encoding").orElse("identity")
+                                      .trim().toLowerCase(Locale.ROOT);
+            try (CountingInputStream wire = new CountingInputStream(response.body());
+                 CountingInputStream body = new CountingInputStream(decode(wire, encoding))) {
+                if (status != 200 || maxlag) {
+                    MOD.metrics().counter("http.errors", "host", host, "endpoint", endpoint).increment();
+                    String message = maxlag ? "maxlag" : new String(body.readNBytes(512), StandardCharsets.UTF_8);
+                    throw new IOException("HTTP " + status + " " + message);
+                }
+
+                T result = reader.read(body);
+                MOD.metrics().histogram("http.latency", "host", host, "endpoint", endpoint).recordSince(start);
+                MOD.metrics().counter("http.bytes", "host", host).add(wire.getCount());
+                MOD.metrics().counter("http.decoded_bytes", "host", host).add(body.getCount());
+                event.bytes = wire.getCount();
+                return result;
+            }
+        } finally {
+            if (!recorded) limiter.recordAbandoned();
+            MOD.metrics().counter("http.in_flight").decrement();
+            event.commit();
         }
     }
 
+    /**
+     * Wraps a response body to decompress it according to its {@code Content-Encoding}.
+     */
+    private static InputStream decode(InputStream body, String encoding) throws IOException {
+        return switch (encoding) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(body, 8192);
+            case "deflate" -> inflate(body);
+            case "identity" -> body;
+            default -> throw new IOException("Unsupported Content-Encoding " + encoding);
+        };
+    }
+
+    /**
+     * Wraps a {@code deflate} response body to decompress it. The body should be zlib-wrapped, but some servers send
+     * raw deflate data, so the first two bytes are checked for a zlib header. The native memory of the inflater is
+     * freed as soon as the stream is closed.
+     */
+    private static InputStream inflate(InputStream body) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(body, 2);
+        byte[] header = in.readNBytes(2);
+        in.unread(header);
+        // A zlib header uses the deflate method and is a multiple of 31 when read as a big-endian number.
+        boolean zlib = header.length == 2 && (header[0] & 0x0F) == 8 &&
+                       ((header[0] & 0xFF) << 8 | header[1] & 0xFF) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(in, inflater, 8192) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Gets how long to wait before the next request from the {@code Retry-After} header of a response, which is
+     * either a number of seconds or an HTTP date.
+     */
+    private static Duration retryAfter(HttpResponse<?> response) {
+        String value = response.headers().firstValue("Retry-After").orElse(null);
+        if (value == null) return DEFAULT_RETRY_AFTER;
+
+        Duration duration;
+        try {
+            duration = Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                duration = Duration.between(ZonedDateTime.now(date.getZone()), date);
+            } catch (DateTimeParseException ex) {
+                return DEFAULT_RETRY_AFTER;
+            }
+        }
+
+        if (duration.isNegative()) return Duration.ZERO;
+        return duration.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : duration;
+    }
+
+    /**
+     * Gets the endpoint of a request for metrics, i.e. the {@code action} of API requests or {@code file} otherwise.
+     */
+    private static String endpointOf(URI uri) {
+        String query = uri.getRawQuery();
+        if (query == null) return "file";
+
+        for (String param : query.split("&")) {
+            if (param.startsWith("action=")) return param.substring("action=".length());
+        }
+        return "file";
+    }
+
     public static URI uriWithQuery(URI uri, String query) {
         try {
             return new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), query, uri.getFragment());
@@ -82,46 +239,111 @@ public class HttpUtil {
         }
     }
 
+    /**
+     * Loads a file from the temporary directory cache, downloading it if it is not cached.
+     *
+     * <p>Cancelling the returned future aborts the download. Files are packed into a few segment files, which are
+     * shared with other game instances on the same machine, so a file downloaded by one of them is not downloaded
+     * again.
+     *
+     * @param url The URL of the file.
+     * @return The content of the file, or {@code null} if it could not be loaded.
+     * @see SegmentStore
+     */
     public static CompletableFuture<byte[]> loadAndCacheFile(String url) {
-        return CompletableFuture.supplyAsync(() -> {
-            MessageDigest md;
+        return HeyWikiExecutors.supplyAsync(() -> {
             try {
-                md = MessageDigest.getInstance("SHA-1");
-            } catch (NoSuchAlgorithmException e) {
-                throw new RuntimeException(e);
+                return FILE_CACHE.get(url, () -> request(URI.create(url), InputStream::readAllBytes));
+            } catch (InterruptedException | ClosedByInterruptException e) {
+                Thread.currentThread().interrupt();
+            } catch (HostUnavailableException e) {
+                LOGGER.debug("Skipped fetching image: {}", e.getMessage());
+            } catch (Exception e) {
+                LOGGER.error("Failed to fetch image", e);
             }
 
-            String hash = Hex.encodeHexString(md.digest(url.getBytes(StandardCharsets.UTF_8)));
-            String tempDir = System.getProperty("java.io.tmpdir");
-            String path = tempDir + "/heywiki/" + hash;
+            return null;
+        }, HeyWikiExecutors.io());
+    }
 
-            File file = new File(path);
-            if (file.exists()) {
-                try {
-                    return Files.readAllBytes(file.toPath());
-                } catch (IOException e) {
-                    LOGGER.error("Failed to fetch file", e);
-                }
+    /**
+     * Percent-encodes a string for use in a URL. Spaces are encoded as {@code %20}.
+     *
+     * @param url The string to encode.
+     * @return The encoded string.
+     * @see #encodeUrl(StringBuilder, CharSequence, IntUnaryOperator)
+     */
+    public static String encodeUrl(String url) {
+        StringBuilder builder = new StringBuilder(url.length() + 16);
+        encodeUrl(builder, url, IntUnaryOperator.identity());
+        return builder.toString();
+    }
+
+    /**
+     * Percent-encodes a string in a single pass, mapping each code point before it is encoded.
+     *
+     * <p>The output is the same as {@link URLEncoder#encode(String, java.nio.charset.Charset)} with UTF-8,
+     * except that spaces are encoded as {@code %20} instead of {@code +}.
+     *
+     * @param builder The builder to append to.
+     * @param string  The string to encode.
+     * @param mapper  The mapping applied to each code point, e.g. a {@link wiki.minecraft.heywiki.wiki.TitleFormat}.
+     */
+    public static void encodeUrl(StringBuilder builder, CharSequence string, IntUnaryOperator mapper) {
+        int length = string.length();
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            int codePoint = c;
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                codePoint = Character.toCodePoint(c, string.charAt(++i));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are replaced, like the UTF-8 encoder does.
+                codePoint = '?';
+            }
+
+            codePoint = mapper.applyAsInt(codePoint);
+
+            if ((codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z') ||
+                (codePoint >= '0' && codePoint <= '9') ||
+                codePoint == '.' || codePoint == '-' || codePoint == '*' || codePoint == '_') {
+                builder.append((char) codePoint);
+            } else if (codePoint < 0x80) {
+                appendPercentEncoded(builder, codePoint);
+            } else if (codePoint < 0x800) {
+                appendPercentEncoded(builder, 0xC0 | (codePoint >> 6));
+                appendPercentEncoded(builder, 0x80 | (codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                appendPercentEncoded(builder, 0xE0 | (codePoint >> 12));
+                appendPercentEncoded(builder, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendPercentEncoded(builder, 0x80 | (codePoint & 0x3F));
             } else {
-                try {
-                    byte[] fileData = request(URI.create(url), HttpResponse.BodyHandlers.ofByteArray());
-
-                    Path parentDir = file.toPath().getParent();
-                    if (!Files.exists(parentDir)) {
-                        Files.createDirectories(parentDir);
-                    }
-                    Files.write(file.toPath(), fileData);
-                    return fileData;
-                } catch (Exception e) {
-                    LOGGER.error("Failed to fetch image", e);
-                }
+                appendPercentEncoded(builder, 0xF0 | (codePoint >> 18));
+                appendPercentEncoded(builder, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendPercentEncoded(builder, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendPercentEncoded(builder, 0x80 | (codePoint & 0x3F));
             }
+        }
+    }
 
-            return null;
-        }, Util.getIoWorkerExecutor());
+    private static void appendPercentEncoded(StringBuilder builder, int b) {
+        builder.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
     }
 
-    public static String encodeUrl(String url) {
-        return URLEncoder.encode(url, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
+    /**
+     * Reads a response body.
+     *
+     * @param <T> The type of the result.
+     * @see #request(URI, BodyReader)
+     */
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        /**
+         * Reads a response body.
+         *
+         * @param body The decompressed body. It is closed after the reader returns.
+         * @return The result.
+         * @throws IOException If the body cannot be read or is malformed.
+         */
+        T read(InputStream body) throws IOException;
     }
 }
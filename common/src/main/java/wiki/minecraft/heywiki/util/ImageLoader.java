@@ -0,0 +1,194 @@
+package wiki.minecraft.heywiki.util;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import wiki.minecraft.heywiki.metrics.MetricsRegistry;
+
+import java.net.URI;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Downloads images with a bounded number of concurrent requests, overall and per host.
+ *
+ * <p>Queued images are started in order of their {@link Priority}, then in the order they were requested. Cancelling
+ * the future of a queued image removes it from the queue, and cancelling a running one aborts its download, so
+ * images that are no longer shown never hold up the ones that are.
+ *
+ * @see HttpUtil#loadAndCacheFile(String)
+ */
+public class ImageLoader {
+    private final int maxConcurrent;
+    private final int maxPerHost;
+    private final TreeSet<Request> queue = new TreeSet<>(Comparator.comparing((Request request) -> request.priority)
+                                                                   .thenComparingLong(request -> request.sequence));
+    private final Object2IntMap<String> runningPerHost = new Object2IntOpenHashMap<>();
+    private final MetricsRegistry metrics;
+    private int running = 0;
+    private long sequence = 0;
+
+    /**
+     * Creates a new image loader.
+     *
+     * @param metrics       The metrics registry to report the queue to.
+     * @param maxConcurrent The maximum number of concurrent downloads.
+     * @param maxPerHost    The maximum number of concurrent downloads from a single host.
+     */
+    public ImageLoader(MetricsRegistry metrics, int maxConcurrent, int maxPerHost) {
+        this.metrics = metrics;
+        this.maxConcurrent = maxConcurrent;
+        this.maxPerHost = maxPerHost;
+
+        metrics.gauge("images.queued", () -> {
+            synchronized (this) {
+                return this.queue.size();
+            }
+        });
+        metrics.gauge("images.running", () -> {
+            synchronized (this) {
+                return this.running;
+            }
+        });
+    }
+
+    /**
+     * Requests an image.
+     *
+     * @param url      The URL of the image.
+     * @param priority The priority of the image.
+     * @return The content of the image, or {@code null} if it could not be loaded. Cancel it when the image is no
+     * longer needed.
+     */
+    public CompletableFuture<byte[]> load(String url, Priority priority) {
+        Request request;
+        synchronized (this) {
+            request = new Request(url, hostOf(url), priority, this.sequence++);
+            this.queue.add(request);
+        }
+
+        request.result.whenComplete((image, throwable) -> {
+            if (!request.result.isCancelled()) return;
+            this.metrics.counter("images.dropped").increment();
+            CompletableFuture<byte[]> download;
+            synchronized (this) {
+                this.queue.remove(request);
+                download = request.download;
+            }
+            if (download != null) download.cancel(true);
+        });
+
+        this.pump();
+        return request.result;
+    }
+
+    /**
+     * Raises the priority of queued requests for an image, e.g. when it scrolls into view.
+     *
+     * @param url      The URL of the image.
+     * @param priority The new priority. Requests that already have a higher priority are left unchanged.
+     */
+    public synchronized void prioritize(String url, Priority priority) {
+        for (Request request : this.queue) {
+            if (request.url.equals(url) && request.priority.compareTo(priority) > 0) {
+                // The request has to be reinserted, since its position in the queue depends on the priority.
+                this.queue.remove(request);
+                request.priority = priority;
+                this.queue.add(request);
+                return;
+            }
+        }
+    }
+
+    private void pump() {
+        while (true) {
+            Request next = null;
+            synchronized (this) {
+                if (this.running >= this.maxConcurrent) return;
+
+                Iterator<Request> iterator = this.queue.iterator();
+                while (iterator.hasNext()) {
+                    Request request = iterator.next();
+                    if (this.runningPerHost.getInt(request.host) < this.maxPerHost) {
+                        iterator.remove();
+                        next = request;
+                        break;
+                    }
+                }
+                if (next == null) return;
+
+                this.running++;
+                this.runningPerHost.mergeInt(next.host, 1, Integer::sum);
+            }
+
+            this.start(next);
+        }
+    }
+
+    private void start(Request request) {
+        this.metrics.histogram("images.queue_time").recordSince(request.queuedAt);
+        CompletableFuture<byte[]> download = HttpUtil.loadAndCacheFile(request.url);
+        synchronized (this) {
+            request.download = download;
+        }
+        // The request may have been cancelled before the download was assigned.
+        if (request.result.isCancelled()) download.cancel(true);
+
+        download.whenComplete((image, throwable) -> {
+            synchronized (this) {
+                this.running--;
+                if (this.runningPerHost.mergeInt(request.host, -1, Integer::sum) <= 0) {
+                    this.runningPerHost.removeInt(request.host);
+                }
+            }
+
+            if (throwable != null) request.result.completeExceptionally(throwable);
+            else request.result.complete(image);
+            this.pump();
+        });
+    }
+
+    private static String hostOf(String url) {
+        try {
+            return String.valueOf(URI.create(url).getHost());
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * The priority of an image. Images with a lower ordinal are downloaded first.
+     */
+    public enum Priority {
+        /**
+         * The main image of a screen, like the page image of the link confirmation screen.
+         */
+        HERO,
+        /**
+         * An image that is currently visible.
+         */
+        VISIBLE,
+        /**
+         * An image that may become visible, e.g. when a list is scrolled.
+         */
+        PREFETCH
+    }
+
+    private static class Request {
+        private final String url;
+        private final String host;
+        private final long sequence;
+        private final long queuedAt = System.nanoTime();
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        private Priority priority;
+        private CompletableFuture<byte[]> download;
+
+        private Request(String url, String host, Priority priority, long sequence) {
+            this.url = url;
+            this.host = host;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
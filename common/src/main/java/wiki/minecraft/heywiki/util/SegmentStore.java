@@ -0,0 +1,560 @@
+package wiki.minecraft.heywiki.util;
+
+import com.mojang.logging.LogUtils;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.metrics.MetricsRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A cache of downloaded files packed into a few large segment files, shared by all game instances on the machine.
+ *
+ * <p>Files are appended to the newest segment as records, with a header holding the SHA-1 hash of their key, their
+ * length and a CRC-32 checksum. An in-memory index maps hashes to records. Segments are memory-mapped, so reading a
+ * cached file is a single copy of a slice of the mapping, without opening a file. Segments are only ever appended to,
+ * so an indexed record stays valid until its segment is compacted away.
+ *
+ * <p>Other instances append to the same segments. When a key is missing from the index, the segments are scanned
+ * from where the last scan stopped. A record whose checksum does not match, like one that is still being appended,
+ * ends the scan until the next one. Segments are never truncated, since a mapped file cannot be truncated on some
+ * systems and other instances may still map it, so when a writer crashed and left a partial record at the end of the
+ * newest segment, the next append starts a new segment instead.
+ *
+ * <p>Instances coordinate through a byte-range lock on a {@code .lock} file, which is locked while appending. A missing
+ * file is downloaded without holding it, so a slow download never holds up other instances, and the segments are
+ * checked again under the lock so that a file another instance stored meanwhile is not appended twice. File locks
+ * are held by the whole process, so threads of the same instance also take a lock of their own first. For the same
+ * reason, the file lock is polled instead of waited for, since the system would report a deadlock when threads of two
+ * instances wait for ranges that other threads of the instances hold, and it is taken through one channel that stays
+ * open, since closing any channel of the lock file releases all locks of the process on some systems.
+ *
+ * <p>When the segments grow beyond {@value #MAX_BYTES} bytes, the oldest ones are compacted in the background: the
+ * records that were read since the last compaction are copied to the newest segment, and the old segment is deleted.
+ * Segments that are still mapped cannot be deleted on some systems, and are retried at the next compaction. The index
+ * is saved to a compact snapshot after compaction and every {@value #SNAPSHOT_INTERVAL} appends, so that startup only
+ * scans what was appended since.
+ */
+public class SegmentStore {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int RECORD_MAGIC = 0x48575231;
+    private static final int SNAPSHOT_MAGIC = 0x48574931;
+    private static final int HASH_BYTES = 20;
+    private static final int HEADER_BYTES = 4 + HASH_BYTES + 4 + 4;
+    private static final long SEGMENT_BYTES = 16L << 20;
+    private static final long MAX_BYTES = 256L << 20;
+    private static final int SNAPSHOT_INTERVAL = 64;
+    /**
+     * The range of the lock file that is locked while appending.
+     */
+    private static final int APPEND_LOCK_POSITION = 0;
+    private static final long LOCK_POLL_MILLIS = 10;
+    private static final String LOCK_FILE = ".lock";
+    private static final String SNAPSHOT_FILE = "index.snapshot";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.dat");
+    /**
+     * Files of the one-file-per-URL cache that this store replaces, and their partial downloads.
+     */
+    private static final Pattern LEGACY_NAME = Pattern.compile("[0-9a-f]{40}(\\d*\\.part)?");
+
+    private final Path directory;
+    private final String name;
+    private final MetricsRegistry.CacheCounters metrics;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    /**
+     * The records that were read since the last compaction, which are kept when their segment is compacted.
+     */
+    private final Set<String> accessed = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+    /**
+     * How far each segment has been scanned, which is the end of its last valid record.
+     */
+    private final TreeMap<Integer, Long> scanned = new TreeMap<>();
+    private final AtomicBoolean maintenanceScheduled = new AtomicBoolean();
+    private int appendsSinceSnapshot = 0;
+    private FileChannel lockChannel;
+    private volatile boolean opened = false;
+
+    /**
+     * Creates a new segment store. The directory is only read when the store is first used.
+     *
+     * @param directory The directory of the segments.
+     * @param name      The name of the cache in metrics.
+     */
+    public SegmentStore(Path directory, String name) {
+        this.directory = directory;
+        this.name = name;
+        this.metrics = MOD.metrics().cache(name);
+        MOD.metrics().gauge("file_cache.segments", () -> {
+            synchronized (this) {
+                return this.scanned.size();
+            }
+        }, "cache", name);
+    }
+
+    /**
+     * Gets a file from the store, loading it if no instance has stored it yet.
+     *
+     * @param key    The key of the file, e.g. its URL.
+     * @param loader Loads the content of the file, e.g. by downloading it.
+     * @return The content of the file.
+     * @throws Exception If the loader throws an exception, or the store cannot be written.
+     */
+    public byte[] get(String key, Callable<byte[]> loader) throws Exception {
+        this.open();
+        String hash = hashOf(key);
+
+        byte[] cached = this.read(hash);
+        if (cached != null) {
+            this.metrics.hits().increment();
+            return cached;
+        }
+
+        this.metrics.misses().increment();
+        byte[] content = loader.call();
+
+        boolean appended;
+        this.appendLock.lockInterruptibly();
+        try {
+            appended = this.withFileLock(APPEND_LOCK_POSITION, () -> {
+                // Another thread or instance may have stored the file while this one downloaded it.
+                this.refresh();
+                if (this.index.containsKey(hash)) return false;
+                this.append(hash, content);
+                return true;
+            });
+        } finally {
+            this.appendLock.unlock();
+        }
+        if (appended) {
+            this.afterAppend();
+        } else {
+            MOD.metrics().counter("file_cache.loaded_by_other", "cache", this.name).increment();
+        }
+        return content;
+    }
+
+    private void open() throws IOException {
+        if (this.opened) return;
+        synchronized (this) {
+            if (this.opened) return;
+
+            Files.createDirectories(this.directory);
+            this.lockChannel = FileChannel.open(this.directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                                                StandardOpenOption.WRITE);
+            this.removeLegacyFiles();
+            this.loadSnapshot();
+            int scannedRecords = this.refresh();
+            this.opened = true;
+            if (scannedRecords >= SNAPSHOT_INTERVAL) this.scheduleMaintenance();
+        }
+    }
+
+    private byte @Nullable [] read(String hash) {
+        Location location = this.index.get(hash);
+        if (location == null) return null;
+
+        byte[] content = this.read(location);
+        if (content == null) {
+            this.index.remove(hash, location);
+            return null;
+        }
+        this.accessed.add(hash);
+        return content;
+    }
+
+    private byte @Nullable [] read(Location location) {
+        try {
+            MappedByteBuffer mapping = this.map(location.segment(), location.end());
+            byte[] content = new byte[location.length()];
+            mapping.slice(location.offset() + HEADER_BYTES, location.length()).get(content);
+            return content;
+        } catch (NoSuchFileException e) {
+            // The segment was compacted away by another instance.
+            return null;
+        } catch (IOException e) {
+            LOGGER.error("Failed to read segment {} of {} cache", location.segment(), this.name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Maps a segment, or maps it again if the mapping is shorter than needed because the segment has grown.
+     */
+    private MappedByteBuffer map(int segment, long minLength) throws IOException {
+        MappedByteBuffer mapping = this.mappings.get(segment);
+        if (mapping != null && mapping.capacity() >= minLength) return mapping;
+
+        synchronized (this.mappings) {
+            mapping = this.mappings.get(segment);
+            if (mapping != null && mapping.capacity() >= minLength) return mapping;
+
+            try (FileChannel channel = FileChannel.open(this.segmentPath(segment), StandardOpenOption.READ)) {
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            this.mappings.put(segment, mapping);
+            return mapping;
+        }
+    }
+
+    /**
+     * Indexes the records that were appended since the last scan, and forgets segments that no longer exist.
+     *
+     * @return The number of records that were indexed.
+     */
+    private synchronized int refresh() throws IOException {
+        List<Integer> segments = this.listSegments();
+        int records = 0;
+        for (int segment : segments) {
+            long position = this.scanned.getOrDefault(segment, 0L);
+            try {
+                MappedByteBuffer mapping = this.map(segment, 0);
+                while ((mapping = this.mapAtLeast(segment, mapping, position + HEADER_BYTES)) != null) {
+                    int offset = (int) position;
+                    if (mapping.getInt(offset) != RECORD_MAGIC) break;
+                    int length = mapping.getInt(offset + 4 + HASH_BYTES);
+                    int checksum = mapping.getInt(offset + 4 + HASH_BYTES + 4);
+                    if (length < 0) break;
+                    mapping = this.mapAtLeast(segment, mapping, position + HEADER_BYTES + length);
+                    if (mapping == null) break;
+
+                    CRC32 crc = new CRC32();
+                    crc.update(mapping.slice(offset + HEADER_BYTES, length));
+                    if ((int) crc.getValue() != checksum) break;
+
+                    byte[] hash = new byte[HASH_BYTES];
+                    mapping.get(offset + 4, hash);
+                    this.index.put(HEX.formatHex(hash), new Location(segment, offset, length));
+                    position += HEADER_BYTES + length;
+                    records++;
+                }
+            } catch (NoSuchFileException e) {
+                // The segment was compacted away by another instance meanwhile.
+                continue;
+            }
+            this.scanned.put(segment, position);
+        }
+
+        for (int segment : List.copyOf(this.scanned.keySet())) {
+            if (!segments.contains(segment)) this.forget(segment);
+        }
+        return records;
+    }
+
+    /**
+     * Gets a mapping of a segment that covers a length, mapping the segment again if it has grown.
+     *
+     * @return The mapping, or {@code null} if the segment is shorter.
+     */
+    private @Nullable MappedByteBuffer mapAtLeast(int segment, MappedByteBuffer mapping, long length)
+            throws IOException {
+        if (mapping.capacity() >= length) return mapping;
+        if (Files.size(this.segmentPath(segment)) < length) return null;
+        return this.map(segment, length);
+    }
+
+    /**
+     * Appends a record to the newest segment, starting a new one if it is full or ends in a partial record. Must be
+     * called with the append lock held, right after a {@link #refresh()}.
+     */
+    private void append(String hash, byte[] content) throws IOException {
+        int segment;
+        long position;
+        synchronized (this) {
+            segment = this.scanned.isEmpty() ? 0 : this.scanned.lastKey();
+            position = this.scanned.getOrDefault(segment, 0L);
+        }
+        if (position > 0 && position + HEADER_BYTES + content.length > SEGMENT_BYTES) {
+            segment++;
+            position = 0;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + content.length);
+        record.putInt(RECORD_MAGIC)
+              .put(HEX.parseHex(hash))
+              .putInt(content.length)
+              .putInt((int) crc.getValue())
+              .put(content)
+              .flip();
+
+        while (true) {
+            try (FileChannel channel = FileChannel.open(this.segmentPath(segment), StandardOpenOption.CREATE,
+                                                        StandardOpenOption.WRITE)) {
+                // A crashed instance left a partial record behind, which is skipped along with the rest of the segment.
+                if (channel.size() > position) {
+                    segment++;
+                    position = 0;
+                    continue;
+                }
+                while (record.hasRemaining()) channel.write(record, position + record.position());
+                break;
+            }
+        }
+
+        synchronized (this) {
+            this.index.put(hash, new Location(segment, (int) position, content.length));
+            this.scanned.put(segment, position + HEADER_BYTES + content.length);
+        }
+    }
+
+    private void afterAppend() {
+        boolean maintain;
+        synchronized (this) {
+            this.appendsSinceSnapshot++;
+            maintain = this.appendsSinceSnapshot >= SNAPSHOT_INTERVAL || this.totalBytes() > MAX_BYTES;
+        }
+        if (maintain) this.scheduleMaintenance();
+    }
+
+    private void scheduleMaintenance() {
+        if (!this.maintenanceScheduled.compareAndSet(false, true)) return;
+        try {
+            HeyWikiExecutors.io().execute(this::maintain);
+        } catch (RejectedExecutionException e) {
+            this.maintenanceScheduled.set(false);
+        }
+    }
+
+    private void maintain() {
+        try {
+            this.appendLock.lockInterruptibly();
+            try {
+                this.withFileLock(APPEND_LOCK_POSITION, () -> {
+                    this.refresh();
+                    this.compact();
+                    this.saveSnapshot();
+                    return null;
+                });
+            } finally {
+                this.appendLock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.warn("Failed to maintain {} cache", this.name, e);
+        } finally {
+            this.maintenanceScheduled.set(false);
+        }
+    }
+
+    /**
+     * Deletes the oldest segments until the store fits, keeping the records that were read since the last compaction.
+     * The newest segment is never deleted, so that segment numbers keep increasing.
+     */
+    private void compact() throws IOException {
+        List<Integer> segments;
+        synchronized (this) {
+            if (this.totalBytes() <= MAX_BYTES || this.scanned.size() < 2) return;
+            segments = List.copyOf(this.scanned.headMap(this.scanned.lastKey()).keySet());
+        }
+
+        for (int segment : segments) {
+            List<String> kept = new ArrayList<>();
+            this.index.forEach((hash, location) -> {
+                if (location.segment() == segment && this.accessed.remove(hash)) kept.add(hash);
+            });
+            for (String hash : kept) {
+                Location location = this.index.get(hash);
+                byte[] content = location != null ? this.read(location) : null;
+                if (content != null) this.append(hash, content);
+            }
+
+            this.mappings.remove(segment);
+            try {
+                Files.deleteIfExists(this.segmentPath(segment));
+            } catch (IOException e) {
+                LOGGER.debug("Could not delete segment {} of {} cache yet: {}", segment, this.name, e.getMessage());
+                return;
+            }
+            MOD.metrics().counter("file_cache.compacted_segments", "cache", this.name).increment();
+
+            synchronized (this) {
+                this.forget(segment);
+                if (this.totalBytes() <= MAX_BYTES) return;
+            }
+        }
+    }
+
+    private synchronized void forget(int segment) {
+        this.scanned.remove(segment);
+        this.mappings.remove(segment);
+        this.index.values().removeIf(location -> location.segment() == segment);
+    }
+
+    private synchronized long totalBytes() {
+        return this.scanned.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private void loadSnapshot() {
+        Path path = this.directory.resolve(SNAPSHOT_FILE);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) return;
+
+            List<Integer> existing = this.listSegments();
+            Map<Integer, Long> lengths = new HashMap<>();
+            int segments = in.readInt();
+            for (int i = 0; i < segments; i++) {
+                int segment = in.readInt();
+                long length = in.readLong();
+                if (existing.contains(segment)) lengths.put(segment, length);
+            }
+
+            Map<String, Location> entries = new HashMap<>();
+            byte[] hash = new byte[HASH_BYTES];
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                in.readFully(hash);
+                Location location = new Location(in.readInt(), in.readInt(), in.readInt());
+                Long length = lengths.get(location.segment());
+                if (length != null && location.end() <= length) entries.put(HEX.formatHex(hash), location);
+            }
+
+            this.scanned.putAll(lengths);
+            this.index.putAll(entries);
+        } catch (NoSuchFileException e) {
+            // The store is new, or the snapshot was never written.
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read {} cache index, scanning segments instead", this.name, e);
+        }
+    }
+
+    /**
+     * Saves the index to a snapshot. Must be called with the append lock held.
+     */
+    private void saveSnapshot() throws IOException {
+        Map<Integer, Long> lengths;
+        Map<String, Location> entries;
+        synchronized (this) {
+            lengths = new TreeMap<>(this.scanned);
+            entries = new HashMap<>(this.index);
+            this.appendsSinceSnapshot = 0;
+        }
+
+        Path partial = Files.createTempFile(this.directory, "index", ".part");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(partial)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(lengths.size());
+                for (Map.Entry<Integer, Long> entry : lengths.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Location> entry : entries.entrySet()) {
+                    out.write(HEX.parseHex(entry.getKey()));
+                    out.writeInt(entry.getValue().segment());
+                    out.writeInt(entry.getValue().offset());
+                    out.writeInt(entry.getValue().length());
+                }
+            }
+            Files.move(partial, this.directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private void removeLegacyFiles() {
+        Path parent = this.directory.getParent();
+        if (parent == null) return;
+
+        try (Stream<Path> files = Files.list(parent)) {
+            files.filter(file -> LEGACY_NAME.matcher(file.getFileName().toString()).matches())
+                 .forEach(file -> {
+                     try {
+                         Files.deleteIfExists(file);
+                     } catch (IOException e) {
+                         LOGGER.debug("Failed to remove old cached file {}: {}", file, e.getMessage());
+                     }
+                 });
+        } catch (IOException e) {
+            LOGGER.debug("Failed to list old cached files: {}", e.getMessage());
+        }
+    }
+
+    private <T> T withFileLock(long position, Callable<T> action) throws Exception {
+        FileLock lock;
+        while ((lock = this.lockChannel.tryLock(position, 1, false)) == null) {
+            Thread.sleep(LOCK_POLL_MILLIS);
+        }
+        try (FileLock ignored = lock) {
+            return action.call();
+        }
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.map(file -> SEGMENT_NAME.matcher(file.getFileName().toString()))
+                        .filter(Matcher::matches)
+                        .map(matcher -> Integer.parseInt(matcher.group(1)))
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return this.directory.resolve(String.format("segment-%06d.dat", segment));
+    }
+
+    private static String hashOf(String key) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        return HEX.formatHex(md.digest(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * The place of a record in a segment.
+     *
+     * @param segment The number of the segment.
+     * @param offset  The offset of the record header in the segment.
+     * @param length  The length of the content.
+     */
+    private record Location(int segment, int offset, int length) {
+        private long end() {
+            return (long) this.offset + HEADER_BYTES + this.length;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package wiki.minecraft.heywiki.util;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Owns the background tasks of a screen, so that they can be stopped when the screen goes away.
+ *
+ * <p>Closing the scope cancels every tracked future, which interrupts tasks started with
+ * {@link #supply(Callable, ExecutorService)} and therefore aborts their HTTP requests. Callbacks scheduled with
+ * {@link #execute(Runnable)} after the scope is closed are dropped.
+ *
+ * <p>Futures that are shared with other consumers, like cached page excerpts, should be tracked as a
+ * {@link CompletableFuture#copy() copy}, so that closing the scope does not cancel them for everyone.
+ */
+public final class TaskScope implements AutoCloseable {
+    private final Set<CompletableFuture<?>> futures = ConcurrentHashMap.newKeySet();
+    private final Executor callbackExecutor;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new scope.
+     *
+     * @param callbackExecutor The executor to run callbacks on, usually the client.
+     */
+    public TaskScope(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Runs a task in this scope.
+     *
+     * @param task     The task.
+     * @param executor The executor to run the task on.
+     * @return The result, which is cancelled and interrupted when the scope is closed.
+     * @see HeyWikiExecutors#supplyAsync(Callable, ExecutorService)
+     */
+    public <T> CompletableFuture<T> supply(Callable<T> task, ExecutorService executor) {
+        if (this.closed) return CompletableFuture.failedFuture(new IllegalStateException("Scope is closed"));
+        return this.track(HeyWikiExecutors.supplyAsync(task, executor));
+    }
+
+    /**
+     * Tracks a future in this scope.
+     *
+     * @param future The future.
+     * @return The same future, which is cancelled when the scope is closed.
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        this.futures.add(future);
+        future.whenComplete((result, throwable) -> this.futures.remove(future));
+        // The scope may have been closed while the future was being added.
+        if (this.closed) future.cancel(true);
+        return future;
+    }
+
+    /**
+     * Runs a callback on the callback executor, unless the scope is closed before it runs.
+     *
+     * @param callback The callback.
+     */
+    public void execute(Runnable callback) {
+        this.execute(callback, () -> {
+        });
+    }
+
+    /**
+     * Runs a callback on the callback executor, unless the scope is closed before it runs.
+     *
+     * @param callback The callback.
+     * @param rejected Run instead of the callback if the scope is closed, e.g. to free native memory.
+     */
+    public void execute(Runnable callback, Runnable rejected) {
+        if (this.closed) {
+            rejected.run();
+            return;
+        }
+
+        this.callbackExecutor.execute(() -> {
+            if (this.closed) rejected.run();
+            else callback.run();
+        });
+    }
+
+    /**
+     * Checks whether the scope is closed.
+     *
+     * @return Whether the scope is closed.
+     */
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Closes the scope, cancelling all tracked futures and rejecting later callbacks.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.futures.forEach(future -> future.cancel(true));
+        this.futures.clear();
+    }
+}
@@ -0,0 +1,91 @@
+package wiki.minecraft.heywiki.util;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.util.Identifier;
+import wiki.minecraft.heywiki.metrics.ImageEvent;
+import wiki.minecraft.heywiki.metrics.MetricsRegistry;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Uploads decoded images to the GPU on the render thread, a few per frame.
+ *
+ * <p>Images are decoded off-thread and {@link #enqueue enqueued} from any thread. Every frame, {@link #drain()}
+ * uploads queued images until either the time or the byte budget of the frame is used up, so that several images
+ * arriving at once do not cause a visible hitch. At least one image is uploaded per frame, however large.
+ */
+public class TextureUploadQueue {
+    private static final long FRAME_BUDGET_NANOS = 2_000_000;
+    private static final long FRAME_BUDGET_BYTES = 1024 * 1024;
+    private final Queue<Upload> queue = new ConcurrentLinkedQueue<>();
+    private final MetricsRegistry metrics;
+
+    /**
+     * Creates a new upload queue.
+     *
+     * @param metrics The metrics registry to report uploads to.
+     */
+    public TextureUploadQueue(MetricsRegistry metrics) {
+        this.metrics = metrics;
+        metrics.gauge("textures.pending", this.queue::size);
+    }
+
+    /**
+     * Queues an image to be uploaded as a texture.
+     *
+     * @param id         The identifier to register the texture as.
+     * @param image      The decoded image. Ownership passes to the queue, which closes it if it is not uploaded.
+     * @param scope      The scope of the screen the texture is for. Nothing is uploaded once it is closed.
+     * @param onUploaded Run on the render thread after the texture is registered.
+     */
+    public void enqueue(Identifier id, NativeImage image, TaskScope scope, Runnable onUploaded) {
+        if (scope.isClosed()) {
+            image.close();
+            return;
+        }
+        this.queue.add(new Upload(id, image, scope, onUploaded));
+    }
+
+    /**
+     * Uploads queued images within the budget of one frame. Should be called on the render thread once per frame.
+     */
+    public void drain() {
+        RenderSystem.assertOnRenderThread();
+        if (this.queue.isEmpty()) return;
+
+        long start = System.nanoTime();
+        long bytes = 0;
+        Upload upload;
+        while ((upload = this.queue.poll()) != null) {
+            if (upload.scope.isClosed()) {
+                upload.image.close();
+                continue;
+            }
+
+            NativeImage image = upload.image;
+            int width = image.getWidth();
+            int height = image.getHeight();
+            ImageEvent event = ImageEvent.begin(ImageEvent.UPLOAD, upload.id.toString());
+            long uploadStart = System.nanoTime();
+            NativeImageBackedTexture texture = new NativeImageBackedTexture(image);
+            MinecraftClient.getInstance().getTextureManager().registerTexture(upload.id, texture);
+            this.metrics.trackTexture(upload.id, texture);
+            this.metrics.histogram("textures.upload").recordSince(uploadStart);
+            event.commit(width, height);
+            upload.onUploaded.run();
+
+            bytes += (long) width * height * image.getFormat().getChannelCount();
+            if (bytes >= FRAME_BUDGET_BYTES || System.nanoTime() - start >= FRAME_BUDGET_NANOS) {
+                if (!this.queue.isEmpty()) this.metrics.counter("textures.deferred_frames").increment();
+                return;
+            }
+        }
+    }
+
+    private record Upload(Identifier id, NativeImage image, TaskScope scope, Runnable onUploaded) {
+    }
+}
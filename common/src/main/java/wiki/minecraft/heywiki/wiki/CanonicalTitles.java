@@ -0,0 +1,121 @@
+package wiki.minecraft.heywiki.wiki;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jetbrains.annotations.Nullable;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.metrics.MetricsRegistry;
+import wiki.minecraft.heywiki.util.HttpUtil;
+
+import java.net.URI;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the direct URLs of page titles that a wiki has resolved.
+ *
+ * <p>Most wikis link to pages through their search page, e.g. {@code https://minecraft.wiki/?search=%s}, which
+ * redirects to the page in the browser. The MediaWiki API already resolves titles in excerpt and suggestion responses,
+ * following redirects and normalizing titles, and returns the URL of the resolved page. That URL is remembered here,
+ * so that {@link WikiPage#getUrl()} can link to the page directly.
+ *
+ * <p>Only URLs on the host of the wiki's API are accepted, and only for wikis whose article URL is a plain search.
+ */
+public class CanonicalTitles {
+    private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
+    private static final MetricsRegistry.CacheCounters metrics = MOD.metrics().cache("canonical_title");
+    private static final int MAX_SIZE_PER_WIKI = 1024;
+    /**
+     * How long a resolved URL is trusted. Pages are rarely moved, but they can be.
+     */
+    private static final long TTL = TimeUnit.HOURS.toNanos(1);
+    /**
+     * Resolved URLs by title, partitioned by wiki. Wikis are compared by identity, like the excerpt cache.
+     */
+    private static final Cache<WikiIndividual, Cache<String, String>> urlCache =
+            CacheBuilder.newBuilder()
+                        .weakKeys()
+                        .build();
+
+    /**
+     * Remembers the URL a title resolved to.
+     *
+     * @param wiki     The wiki.
+     * @param title    The title as it was requested.
+     * @param url      The URL of the page, e.g. {@code fullurl} of the page info.
+     * @param fragment The section the title redirects to, or {@code null}.
+     */
+    public static void put(WikiIndividual wiki, String title, String url, @Nullable String fragment) {
+        if (!resolvesBySearch(wiki) || !isOnApiHost(wiki, url)) return;
+
+        String resolved = fragment == null || fragment.isEmpty()
+                ? url
+                : url + '#' + encodeFragment(fragment);
+        try {
+            urlCache.get(wiki, CanonicalTitles::createPartition).put(keyOf(title), resolved);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the URL a title resolved to.
+     *
+     * @param wiki  The wiki.
+     * @param title The title.
+     * @return The URL, or {@code null} if the title has not been resolved recently.
+     */
+    public static @Nullable String get(WikiIndividual wiki, String title) {
+        Cache<String, String> partition = urlCache.getIfPresent(wiki);
+        String url = partition != null ? partition.getIfPresent(keyOf(title)) : null;
+        if (url != null) metrics.hits().increment();
+        else metrics.misses().increment();
+        return url;
+    }
+
+    private static Cache<String, String> createPartition() {
+        return CacheBuilder.newBuilder()
+                           .maximumSize(MAX_SIZE_PER_WIKI)
+                           .expireAfterWrite(TTL, TimeUnit.NANOSECONDS)
+                           .removalListener(notification -> {
+                               if (notification.wasEvicted()) metrics.evictions().increment();
+                           })
+                           .build();
+    }
+
+    /**
+     * MediaWiki treats underscores and spaces in titles the same.
+     */
+    private static String keyOf(String title) {
+        return title.replace('_', ' ');
+    }
+
+    /**
+     * Checks whether the article URL of a wiki searches for the title. Other article URLs may add a prefix to the
+     * title or point to a different site, so the resolved page would not be the one they link to.
+     */
+    private static boolean resolvesBySearch(WikiIndividual wiki) {
+        return wiki.mwApiUrl().isPresent() && wiki.articleUrl().template().endsWith("search=%s");
+    }
+
+    private static boolean isOnApiHost(WikiIndividual wiki, String url) {
+        try {
+            URI uri = URI.create(url);
+            String scheme = uri.getScheme();
+            return ("https".equals(scheme) || "http".equals(scheme)) &&
+                   Objects.equals(uri.getHost(), URI.create(wiki.mwApiUrl().orElseThrow()).getHost());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Encodes a section name like MediaWiki does for its anchors.
+     */
+    private static String encodeFragment(String fragment) {
+        StringBuilder builder = new StringBuilder(fragment.length() + 16);
+        HttpUtil.encodeUrl(builder, fragment, codePoint -> codePoint == ' ' ? '_' : codePoint);
+        return builder.toString();
+    }
+}
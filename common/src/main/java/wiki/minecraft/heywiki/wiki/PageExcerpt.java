@@ -2,15 +2,25 @@ package wiki.minecraft.heywiki.wiki;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.mojang.logging.LogUtils;
 import net.minecraft.client.MinecraftClient;
-import net.minecraft.util.Util;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.metrics.JsonDecodeEvent;
+import wiki.minecraft.heywiki.metrics.MetricsRegistry;
+import wiki.minecraft.heywiki.util.HeyWikiExecutors;
+import wiki.minecraft.heywiki.util.HostLimiter;
+import wiki.minecraft.heywiki.util.HostUnavailableException;
 import wiki.minecraft.heywiki.util.HttpUtil;
 
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -31,47 +41,110 @@ public record PageExcerpt(String title, String excerpt, String imageUrl, int ima
     private static final Logger LOGGER = LogUtils.getLogger();
     private static final MinecraftClient CLIENT = MinecraftClient.getInstance();
     private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
-    private static final Cache<String, Optional<CompletableFuture<PageExcerpt>>> excerptCache =
+    private static final MetricsRegistry.CacheCounters metrics = MOD.metrics().cache("excerpt");
+    /**
+     * The maximum weight of the excerpts cached for a single wiki, roughly in bytes.
+     */
+    private static final long MAX_WEIGHT_PER_WIKI = 256 * 1024;
+    private static final long FOUND_TTL = TimeUnit.MINUTES.toNanos(30);
+    private static final long NOT_FOUND_TTL = TimeUnit.MINUTES.toNanos(5);
+    private static final long FAILED_TTL = TimeUnit.SECONDS.toNanos(2);
+    private static final long MAX_FAILED_TTL = TimeUnit.MINUTES.toNanos(2);
+    /**
+     * How long expired excerpts are kept to be shown while the wiki is unavailable.
+     */
+    private static final long STALE_TTL = TimeUnit.HOURS.toNanos(2);
+    /**
+     * Cached excerpts, partitioned by wiki. Wikis are compared by identity, so partitions of wikis that were replaced
+     * by a resource reload are dropped once the old wikis are no longer used.
+     */
+    private static final Cache<WikiIndividual, Cache<String, CachedExcerpt>> excerptCache =
             CacheBuilder.newBuilder()
-                        .maximumSize(
-                                100)
-                        .expireAfterAccess(
-                                10, TimeUnit.MINUTES)
+                        .weakKeys()
                         .build();
 
     /**
      * Creates a page excerpt from a wiki page.
      *
+     * <p>Excerpts are cached by outcome: found pages for 30 minutes, missing pages for 5 minutes, and failed requests
+     * for 2 seconds, doubling with every consecutive failure up to 2 minutes. Found pages are kept past their time
+     * while the wiki is unavailable.
+     *
      * @param page The wiki page.
-     * @return The page excerpt.
+     * @return The page excerpt, which completes with {@code null} if the page is missing or the request failed.
      */
     public static Optional<CompletableFuture<PageExcerpt>> fromPage(WikiPage page) {
         var wiki = page.wiki();
         var apiUrl = wiki.mwApiUrl();
         var excerptType = wiki.excerpt();
+        if (excerptType.isEmpty()) return Optional.empty();
 
-        try {
-            return excerptCache.get(wiki.articleUrl() + " " + page.pageName(), () -> excerptType.map(s -> switch (s) {
-                case "text_extracts" -> {
-                    if (apiUrl.isEmpty()) {
-                        LOGGER.error("No MediaWiki API provided for TextExtracts");
-                        yield null;
-                    }
-                    yield fromTextExtracts(apiUrl.get(), page.pageName(), wiki.language().wikiLanguage());
+        switch (excerptType.get()) {
+            case "text_extracts" -> {
+                if (apiUrl.isEmpty()) {
+                    LOGGER.error("No MediaWiki API provided for TextExtracts");
+                    return Optional.empty();
                 }
-                case "none" -> null;
-                default -> {
-                    LOGGER.error("Unknown excerpt type: {}", s);
-                    yield null;
-                }
-            }));
+            }
+            case "none" -> {
+                return Optional.empty();
+            }
+            default -> {
+                LOGGER.error("Unknown excerpt type: {}", excerptType.get());
+                return Optional.empty();
+            }
+        }
+
+        Cache<String, CachedExcerpt> partition;
+        try {
+            partition = excerptCache.get(wiki, PageExcerpt::createPartition);
         } catch (ExecutionException e) {
             LOGGER.error("Failed to get page excerpt", e);
             return Optional.empty();
         }
+
+        String key = page.pageName();
+        long now = System.nanoTime();
+        // Expired excerpts are still better than nothing while the wiki cannot be reached.
+        boolean available = HostLimiter.isAvailable(apiUrl.get());
+        CachedExcerpt[] created = new CachedExcerpt[1];
+        CachedExcerpt entry = partition.asMap().compute(key, (k, old) -> {
+            if (old != null && (!old.isExpired(now) || (!available && old.outcome == Outcome.FOUND))) return old;
+            created[0] = new CachedExcerpt(old != null ? old.failures() : 0);
+            return created[0];
+        });
+
+        if (entry != created[0]) {
+            metrics.hits().increment();
+            return Optional.of(entry.future);
+        }
+
+        metrics.misses().increment();
+        fromTextExtracts(wiki, apiUrl.get(), key).whenComplete((fetched, throwable) -> {
+            Outcome outcome = fetched != null ? fetched.outcome() : Outcome.FAILED;
+            entry.complete(outcome);
+            entry.future.complete(fetched != null ? fetched.excerpt() : null);
+            // Putting the entry again updates its weight, which is only known now.
+            partition.asMap().replace(key, entry, entry);
+            MOD.metrics().counter("excerpt.outcome", "outcome", outcome.name().toLowerCase(Locale.ROOT))
+               .increment();
+        });
+        return Optional.of(entry.future);
     }
 
-    private static CompletableFuture<PageExcerpt> fromTextExtracts(String apiUrl, String pageName, String language) {
+    private static Cache<String, CachedExcerpt> createPartition() {
+        return CacheBuilder.newBuilder()
+                           .maximumWeight(MAX_WEIGHT_PER_WIKI)
+                           .weigher((String key, CachedExcerpt entry) -> key.length() * 2 + entry.weight())
+                           .expireAfterWrite(STALE_TTL, TimeUnit.NANOSECONDS)
+                           .removalListener(notification -> {
+                               if (notification.wasEvicted()) metrics.evictions().increment();
+                           })
+                           .build();
+    }
+
+    private static CompletableFuture<Fetched> fromTextExtracts(WikiIndividual wiki, String apiUrl, String pageName) {
+        String language = wiki.language().wikiLanguage();
         URI uri = URI.create(apiUrl +
                              "?action=query&format=json&prop=info%7Cextracts%7Cpageimages%7Crevisions%7Cinfo&formatversion=2" +
                              "&redirects=true&exintro=true&exchars=525&explaintext=true&exsectionformat=plain&piprop=thumbnail" +
@@ -79,30 +152,70 @@ public record PageExcerpt(String title, String excerpt, String imageUrl, int ima
                              encodeUrl(pageName) +
                              (language.equals("zh") ? "&converttitles=true&variant=" +
                                                       resolveZhVariant(MOD.config().zhVariant()) : ""));
-        var executor = Util.getDownloadWorkerExecutor();
+        var executor = HeyWikiExecutors.io();
+        var trace = MOD.metrics().tracer().current();
 
         return CompletableFuture.supplyAsync(() -> {
-            try {
-                String body = HttpUtil.request(uri);
-                var page = JsonParser.parseString(body).getAsJsonObject()
-                                     .get("query").getAsJsonObject()
-                                     .get("pages").getAsJsonArray()
-                                     .get(0).getAsJsonObject();
-
-                var thumbnail = page.has("thumbnail") ? page.get("thumbnail").getAsJsonObject() : null;
-
-                return new PageExcerpt(page.get("title").getAsString(),
-                                       page.get("extract").getAsString(),
-                                       thumbnail != null ? thumbnail.get("source").getAsString() : null,
-                                       thumbnail != null ? thumbnail.get("width").getAsInt() : 0,
-                                       thumbnail != null ? thumbnail.get("height").getAsInt() : 0);
+            try (var span = trace.span("excerpt_fetch")) {
+                return HttpUtil.request(uri, body -> {
+                    JsonDecodeEvent event = new JsonDecodeEvent();
+                    event.type = "extracts";
+                    event.length = -1;
+                    event.begin();
+
+                    try {
+                        var root = JsonParser.parseReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                        var query = root.getAsJsonObject().get("query").getAsJsonObject();
+                        var page = query.get("pages").getAsJsonArray()
+                                        .get(0).getAsJsonObject();
+
+                        if (page.has("missing") || page.has("invalid")) return new Fetched(Outcome.NOT_FOUND, null);
+
+                        if (page.has("fullurl")) {
+                            String url = page.get("fullurl").getAsString();
+                            String title = page.get("title").getAsString();
+                            CanonicalTitles.put(wiki, pageName, url, redirectFragment(query, title));
+                            CanonicalTitles.put(wiki, title, url, null);
+                        }
+
+                        var thumbnail = page.has("thumbnail") ? page.get("thumbnail").getAsJsonObject() : null;
+                        event.results = 1;
+
+                        return new Fetched(Outcome.FOUND, new PageExcerpt(
+                                page.get("title").getAsString(),
+                                page.get("extract").getAsString(),
+                                thumbnail != null ? thumbnail.get("source").getAsString() : null,
+                                thumbnail != null ? thumbnail.get("width").getAsInt() : 0,
+                                thumbnail != null ? thumbnail.get("height").getAsInt() : 0));
+                    } finally {
+                        event.commit();
+                    }
+                });
+            } catch (HostUnavailableException e) {
+                LOGGER.debug("Skipped fetching page excerpt: {}", e.getMessage());
+                return new Fetched(Outcome.FAILED, null);
             } catch (Exception e) {
                 LOGGER.error("Failed to fetch page excerpt", e);
-                return null;
+                return new Fetched(Outcome.FAILED, null);
             }
         }, executor);
     }
 
+    /**
+     * Gets the section that the requested title redirects to, from the {@code redirects} of a query response.
+     */
+    private static @Nullable String redirectFragment(JsonObject query, String title) {
+        if (!query.has("redirects")) return null;
+
+        for (JsonElement element : query.getAsJsonArray("redirects")) {
+            JsonObject redirect = element.getAsJsonObject();
+            if (redirect.get("to").getAsString().equals(title) && redirect.has("tofragment")) {
+                return redirect.get("tofragment").getAsString();
+            }
+        }
+        return null;
+    }
+
     private static String resolveZhVariant(String variant) {
         if (variant.equals("auto")) {
             return switch (CLIENT.options.language) {
@@ -114,4 +227,55 @@ public record PageExcerpt(String title, String excerpt, String imageUrl, int ima
         }
         return variant;
     }
+
+    private enum Outcome {
+        FOUND,
+        NOT_FOUND,
+        FAILED
+    }
+
+    private record Fetched(Outcome outcome, PageExcerpt excerpt) {
+    }
+
+    /**
+     * A cached excerpt request. It does not expire while the request is running.
+     */
+    private static final class CachedExcerpt {
+        private final CompletableFuture<PageExcerpt> future = new CompletableFuture<>();
+        private final int previousFailures;
+        private volatile Outcome outcome = null;
+        private volatile long expiresAt;
+
+        private CachedExcerpt(int previousFailures) {
+            this.previousFailures = previousFailures;
+        }
+
+        private void complete(Outcome outcome) {
+            long ttl = switch (outcome) {
+                case FOUND -> FOUND_TTL;
+                case NOT_FOUND -> NOT_FOUND_TTL;
+                case FAILED -> Math.min(FAILED_TTL << Math.min(this.previousFailures, 16), MAX_FAILED_TTL);
+            };
+            this.expiresAt = System.nanoTime() + ttl;
+            this.outcome = outcome;
+        }
+
+        private boolean isExpired(long now) {
+            return this.outcome != null && now - this.expiresAt >= 0;
+        }
+
+        /**
+         * Gets the number of consecutive failures including this request, for the backoff of the next request.
+         */
+        private int failures() {
+            return this.outcome == Outcome.FAILED ? this.previousFailures + 1 : 0;
+        }
+
+        private int weight() {
+            PageExcerpt excerpt = this.future.getNow(null);
+            if (excerpt == null) return 64;
+            return 64 + (excerpt.title().length() + excerpt.excerpt().length() +
+                         (excerpt.imageUrl() != null ? excerpt.imageUrl().length() : 0)) * 2;
+        }
+    }
 }
@@ -0,0 +1,184 @@
+package wiki.minecraft.heywiki.wiki;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.mojang.logging.LogUtils;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.JsonOps;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import org.slf4j.Logger;
+import wiki.minecraft.heywiki.util.HeyWikiExecutors;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Remembers the pages the player opened, so that they can be suggested without asking the wiki.
+ *
+ * <p>Pages are ranked by frecency: every visit adds one to the score of a page, and scores halve every week. Each wiki
+ * keeps at most {@value #MAX_PAGES_PER_WIKI} pages, dropping the lowest scores first. Wikis are identified by their
+ * article URL, since {@link WikiIndividual}s are recreated on every resource reload.
+ *
+ * <p>The history is kept in memory and written to disk in the background after every visit.
+ */
+public class PageHistory {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int MAX_PAGES_PER_WIKI = 100;
+    private static final double HALF_LIFE_MILLIS = 7 * 24 * 60 * 60 * 1000D;
+    private static final Codec<Map<String, List<Visit>>> CODEC =
+            Codec.unboundedMap(Codec.STRING, Visit.CODEC.listOf());
+
+    private final Path path;
+    private final Map<String, Map<String, Visit>> wikis = new HashMap<>();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+
+    private PageHistory(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Loads the history from a file. A missing or malformed file results in an empty history.
+     *
+     * @param path The path of the file.
+     * @return The history.
+     */
+    public static PageHistory load(Path path) {
+        PageHistory history = new PageHistory(path);
+        if (!Files.exists(path)) return history;
+
+        try {
+            JsonElement json = JsonParser.parseString(Files.readString(path));
+            CODEC.parse(JsonOps.INSTANCE, json)
+                 .resultOrPartial(error -> LOGGER.warn("Failed to parse page history: {}", error))
+                 .ifPresent(wikis -> wikis.forEach((wiki, visits) -> {
+                     Map<String, Visit> pages = history.wikis.computeIfAbsent(wiki, k -> new HashMap<>());
+                     for (Visit visit : visits) pages.put(keyOf(visit.title()), visit);
+                 }));
+        } catch (Exception e) {
+            LOGGER.warn("Failed to read page history, starting over", e);
+        }
+        return history;
+    }
+
+    /**
+     * Records that a page was opened.
+     *
+     * @param page The page.
+     */
+    public void recordVisit(WikiPage page) {
+        if (page.wiki() == null || page.pageName().isBlank()) return;
+
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Map<String, Visit> pages = this.wikis.computeIfAbsent(idOf(page.wiki()), k -> new HashMap<>());
+            String title = page.pageName().replace('_', ' ');
+            Visit old = pages.get(keyOf(title));
+            pages.put(keyOf(title), new Visit(title, (old != null ? old.scoreAt(now) : 0) + 1, now));
+
+            if (pages.size() > MAX_PAGES_PER_WIKI) {
+                pages.values().stream()
+                     .min(Comparator.comparingDouble(visit -> visit.scoreAt(now)))
+                     .ifPresent(visit -> pages.remove(keyOf(visit.title())));
+            }
+        }
+
+        this.scheduleSave();
+    }
+
+    /**
+     * Gets the visited pages of a wiki whose titles start with a prefix, ignoring case.
+     *
+     * @param wiki   The wiki.
+     * @param prefix The prefix, or an empty string for all pages.
+     * @param limit  The maximum number of titles.
+     * @return The titles, highest frecency first.
+     */
+    public synchronized List<String> matching(WikiIndividual wiki, String prefix, int limit) {
+        Map<String, Visit> pages = this.wikis.get(idOf(wiki));
+        if (pages == null) return List.of();
+
+        long now = System.currentTimeMillis();
+        String normalized = prefix.replace('_', ' ');
+        return pages.values().stream()
+                    .filter(visit -> visit.title().regionMatches(true, 0, normalized, 0, normalized.length()))
+                    .sorted(Comparator.comparingDouble((Visit visit) -> visit.scoreAt(now)).reversed())
+                    .limit(limit)
+                    .map(Visit::title)
+                    .toList();
+    }
+
+    /**
+     * Writes the history to disk now. Should be called when the game stops.
+     */
+    public void save() {
+        Map<String, List<Visit>> snapshot = new HashMap<>();
+        synchronized (this) {
+            this.wikis.forEach((wiki, pages) -> snapshot.put(wiki, new ArrayList<>(pages.values())));
+        }
+
+        try {
+            JsonElement json = CODEC.encodeStart(JsonOps.INSTANCE, snapshot).getOrThrow();
+            Files.createDirectories(this.path.getParent());
+            Path partial = Files.createTempFile(this.path.getParent(), "history", ".part");
+            try {
+                Files.writeString(partial, json.toString());
+                Files.move(partial, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.error("Failed to save page history", e);
+        }
+    }
+
+    private void scheduleSave() {
+        // Visits that happen while a save is scheduled are written by that save.
+        if (!this.saveScheduled.compareAndSet(false, true)) return;
+        try {
+            HeyWikiExecutors.io().execute(() -> {
+                this.saveScheduled.set(false);
+                this.save();
+            });
+        } catch (RejectedExecutionException e) {
+            this.saveScheduled.set(false);
+        }
+    }
+
+    private static String idOf(WikiIndividual wiki) {
+        return wiki.articleUrl().template();
+    }
+
+    private static String keyOf(String title) {
+        return title.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A visited page.
+     *
+     * @param title     The title of the page.
+     * @param score     The frecency score at the time of the last visit.
+     * @param visitedAt The time of the last visit, in milliseconds since the epoch.
+     */
+    private record Visit(String title, double score, long visitedAt) {
+        private static final Codec<Visit> CODEC = RecordCodecBuilder
+                .create(builder -> builder.group(
+                                                  Codec.STRING.fieldOf("title").forGetter(Visit::title),
+                                                  Codec.DOUBLE.fieldOf("score").forGetter(Visit::score),
+                                                  Codec.LONG.fieldOf("visited_at").forGetter(Visit::visitedAt))
+                                          .apply(builder, Visit::new));
+
+        private double scoreAt(long now) {
+            return this.score * Math.pow(0.5, Math.max(0, now - this.visitedAt) / HALF_LIFE_MILLIS);
+        }
+    }
+}
@@ -34,16 +34,34 @@ public record TitleFormat(Letter letter, Space space) {
      * @return The formatted title.
      */
     public String formatTitle(String title) {
-        String titleLetter = switch (this.letter()) {
-            case LOWER -> title.toLowerCase();
-            case UPPER -> title.toUpperCase();
-            case IGNORE -> title;
-        };
+        if (this.letter() == Letter.IGNORE && this.space() == Space.IGNORE) return title;
+
+        StringBuilder builder = new StringBuilder(title.length());
+        title.codePoints().map(this::formatCodePoint).forEach(builder::appendCodePoint);
+        return builder.toString();
+    }
+
+    /**
+     * Formats a single code point according to the letter and space formatting.
+     *
+     * <p>This allows a title to be formatted while it is being encoded, see {@link UrlTemplate}.
+     *
+     * @param codePoint The code point to format.
+     * @return The formatted code point.
+     */
+    public int formatCodePoint(int codePoint) {
+        if (codePoint == ' ') {
+            return switch (this.space()) {
+                case UNDERSCORE -> '_';
+                case DASH -> '-';
+                case IGNORE -> ' ';
+            };
+        }
 
-        return switch (this.space()) {
-            case UNDERSCORE -> titleLetter.replace(" ", "_");
-            case DASH -> titleLetter.replace(" ", "-");
-            case IGNORE -> titleLetter;
+        return switch (this.letter()) {
+            case LOWER -> Character.toLowerCase(codePoint);
+            case UPPER -> Character.toUpperCase(codePoint);
+            case IGNORE -> codePoint;
         };
     }
 
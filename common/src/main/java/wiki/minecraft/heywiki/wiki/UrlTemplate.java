@@ -0,0 +1,135 @@
+package wiki.minecraft.heywiki.wiki;
+
+import com.mojang.serialization.Codec;
+import org.jetbrains.annotations.Nullable;
+import wiki.minecraft.heywiki.util.HttpUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Represents a URL template with {@code %s} placeholders, such as {@link WikiIndividual#articleUrl()}.
+ *
+ * <p>The template is split into literal segments once when it is loaded, so that expanding it
+ * only appends the segments and the percent-encoded argument to a single {@link StringBuilder}.
+ * Templates that use other format specifiers fall back to {@link String#formatted(Object...)}.
+ */
+public final class UrlTemplate {
+    public static final Codec<UrlTemplate> CODEC = Codec.STRING.xmap(UrlTemplate::compile, UrlTemplate::template);
+
+    private final String template;
+    /**
+     * The literal segments between placeholders, or {@code null} if the template could not be compiled.
+     */
+    private final String[] segments;
+    private final int literalLength;
+
+    private UrlTemplate(String template, @Nullable String[] segments) {
+        this.template = template;
+        this.segments = segments;
+
+        int length = 0;
+        if (segments != null) {
+            for (String segment : segments) length += segment.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compiles a template into its literal segments.
+     *
+     * @param template The template, e.g. {@code https://minecraft.wiki/?search=%s}.
+     * @return The compiled template.
+     */
+    public static UrlTemplate compile(String template) {
+        List<String> segments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c != '%') {
+                segment.append(c);
+                continue;
+            }
+
+            char next = i + 1 < template.length() ? template.charAt(i + 1) : 0;
+            if (next == 's') {
+                segments.add(segment.toString());
+                segment.setLength(0);
+            } else if (next == '%') {
+                segment.append('%');
+            } else {
+                // Other format specifiers are not compiled.
+                return new UrlTemplate(template, null);
+            }
+            i++;
+        }
+        segments.add(segment.toString());
+
+        return new UrlTemplate(template, segments.toArray(String[]::new));
+    }
+
+    /**
+     * Gets the original template.
+     *
+     * @return The template.
+     */
+    public String template() {
+        return this.template;
+    }
+
+    /**
+     * Expands the template with an argument that is percent-encoded as-is.
+     *
+     * @param argument The unencoded argument.
+     * @return The expanded URL.
+     */
+    public String expand(String argument) {
+        return expand(argument, IntUnaryOperator.identity());
+    }
+
+    /**
+     * Expands the template with a page title, applying the title format while percent-encoding it.
+     *
+     * @param title  The unencoded title.
+     * @param format The title format.
+     * @return The expanded URL.
+     */
+    public String expand(String title, TitleFormat format) {
+        return expand(title, format::formatCodePoint);
+    }
+
+    private String expand(String argument, IntUnaryOperator mapper) {
+        if (this.segments == null) {
+            StringBuilder encoded = new StringBuilder(argument.length() + 16);
+            HttpUtil.encodeUrl(encoded, argument, mapper);
+            return this.template.formatted(encoded);
+        }
+
+        int placeholders = this.segments.length - 1;
+        StringBuilder builder = new StringBuilder(this.literalLength + placeholders * (argument.length() + 16));
+        builder.append(this.segments[0]);
+        for (int i = 1; i < this.segments.length; i++) {
+            HttpUtil.encodeUrl(builder, argument, mapper);
+            builder.append(this.segments[i]);
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof UrlTemplate other && this.template.equals(other.template);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.template.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.template;
+    }
+}
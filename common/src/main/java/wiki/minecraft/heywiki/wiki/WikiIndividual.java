@@ -8,21 +8,22 @@ import java.util.Optional;
 /**
  * Represents an individual wiki. This is a single language wiki as part of a {@link WikiFamily}.
  *
- * @param articleUrl     The URL of the article.
+ * @param articleUrl     The URL template of the article.
  * @param mwApiUrl       The URL of the MediaWiki API.
  * @param randomArticle  The URL of a random article.
  * @param versionArticle The URL of the version article.
  * @param excerpt        The excerpt of the article.
+ * @param searchUrl      The URL template of the search page.
  * @param language       The language matcher.
  * @param title          The title formatter.
  */
-public record WikiIndividual(String articleUrl, Optional<String> mwApiUrl, Optional<String> randomArticle,
-                             Optional<String> versionArticle, Optional<String> excerpt, Optional<String> searchUrl,
+public record WikiIndividual(UrlTemplate articleUrl, Optional<String> mwApiUrl, Optional<String> randomArticle,
+                             Optional<String> versionArticle, Optional<String> excerpt, Optional<UrlTemplate> searchUrl,
                              WikiLanguage language, TitleFormat title) {
     public static Codec<WikiIndividual> CODEC = RecordCodecBuilder
             .create(builder ->
                             builder.group(
-                                           Codec.STRING.fieldOf("article_url")
+                                           UrlTemplate.CODEC.fieldOf("article_url")
                                                        .forGetter(wiki -> wiki.articleUrl),
                                            Codec.STRING.optionalFieldOf("mw_api_url")
                                                        .forGetter(wiki -> wiki.mwApiUrl),
@@ -32,7 +33,7 @@ public record WikiIndividual(String articleUrl, Optional<String> mwApiUrl, Optio
                                                        .forGetter(wiki -> wiki.versionArticle),
                                            Codec.STRING.optionalFieldOf("excerpt")
                                                        .forGetter(wiki -> wiki.excerpt),
-                                           Codec.STRING.optionalFieldOf("search_url")
+                                           UrlTemplate.CODEC.optionalFieldOf("search_url")
                                                        .forGetter(wiki -> wiki.searchUrl),
                                            WikiLanguage.CODEC.fieldOf("language")
                                                              .forGetter(wiki -> wiki.language),
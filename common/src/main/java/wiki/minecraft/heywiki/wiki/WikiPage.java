@@ -11,6 +11,7 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import wiki.minecraft.heywiki.HeyWikiClient;
 import wiki.minecraft.heywiki.gui.screen.ConfirmWikiPageScreen;
+import wiki.minecraft.heywiki.wiki.target.PrecomputedTarget;
 import wiki.minecraft.heywiki.wiki.target.Target;
 
 import java.net.URI;
@@ -18,8 +19,6 @@ import java.net.URISyntaxException;
 import java.util.Objects;
 import java.util.Optional;
 
-import static wiki.minecraft.heywiki.util.HttpUtil.encodeUrl;
-
 /**
  * Represents a wiki page.
  *
@@ -50,10 +49,13 @@ public record WikiPage(String pageName, WikiIndividual wiki) {
      */
     public static @Nullable WikiPage fromTarget(Target target) {
         if (target == null) return null;
+        if (target instanceof PrecomputedTarget precomputed) return precomputed.page();
 
-        WikiIndividual wiki = MOD.familyManager().activeWikis().get(target.namespace());
-        if (wiki == null) return null;
-        return new WikiPage(target.title(), wiki);
+        try (var span = MOD.metrics().tracer().current().span("resolve_page")) {
+            WikiIndividual wiki = MOD.familyManager().activeWikis().get(target.namespace());
+            if (wiki == null) return null;
+            return new WikiPage(target.title(), wiki);
+        }
     }
 
     /**
@@ -145,16 +147,40 @@ public record WikiPage(String pageName, WikiIndividual wiki) {
      * @param parent               The parent screen.
      */
     public void openInBrowser(Boolean requiresConfirmation, Screen parent) {
-        var uri = getUri();
+        var trace = MOD.metrics().tracer().current();
+        URI uri;
+        try (var span = trace.span("build_uri")) {
+            uri = getUri();
+        }
         if (uri != null) {
             if (requiresConfirmation) {
-                ConfirmWikiPageScreen.open(parent, uri.toString(), PageExcerpt.fromPage(this), this);
+                try (var span = trace.span("open_confirm_screen")) {
+                    ConfirmWikiPageScreen.open(parent, uri.toString(), PageExcerpt.fromPage(this), this);
+                }
             } else {
-                Util.getOperatingSystem().open(uri);
+                try (var span = trace.span("open_browser")) {
+                    MOD.pageHistory().recordVisit(this);
+                    Util.getOperatingSystem().open(uri);
+                }
             }
         }
     }
 
+    /**
+     * Gets the URL of the page without parsing it into a {@link URI}.
+     *
+     * <p>If the wiki has recently resolved the title, this is the direct URL of the page. Otherwise, it is the
+     * article URL of the wiki, which usually searches for the title.
+     *
+     * @return The URL.
+     * @see CanonicalTitles
+     */
+    public String getUrl() {
+        String resolved = CanonicalTitles.get(this.wiki, this.pageName);
+        if (resolved != null) return resolved;
+        return this.wiki.articleUrl().expand(this.pageName, this.wiki.title());
+    }
+
     /**
      * Gets the URI of the page.
      *
@@ -162,8 +188,7 @@ public record WikiPage(String pageName, WikiIndividual wiki) {
      */
     public @Nullable URI getUri() {
         try {
-            return new URI(this.wiki.articleUrl().formatted(
-                    encodeUrl(this.wiki.title().formatTitle(this.pageName))));
+            return new URI(getUrl());
         } catch (URISyntaxException e) {
             LOGGER.error("Failed to create URI for wiki page", e);
             return null;
@@ -0,0 +1,167 @@
+package wiki.minecraft.heywiki.wiki;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.entry.RegistryEntry;
+import org.jetbrains.annotations.Nullable;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.util.ImageLoader;
+import wiki.minecraft.heywiki.wiki.target.Target;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Represents the wiki pages of many targets resolved at once, e.g. all slots of a container
+ * or all ingredients on a recipe viewer page.
+ *
+ * <p>Targets are deduplicated before their titles and URLs are resolved,
+ * so the cost of a batch scales with the number of unique targets instead of the number of inputs.
+ *
+ * @param entries The resolved pages, one per unique page, in input order.
+ * @param targets A map of every unique target to its resolved page.
+ * @see WikiPage#fromTarget(Target)
+ */
+public record WikiPageBatch(List<Entry> entries, Map<Target, Entry> targets) {
+    private static final HeyWikiClient MOD = HeyWikiClient.getInstance();
+
+    /**
+     * Resolves the pages of item stacks.
+     *
+     * @param stacks The item stacks.
+     * @return The batch.
+     * @see Target#of(ItemStack)
+     */
+    public static WikiPageBatch fromStacks(Iterable<ItemStack> stacks) {
+        Resolver resolver = new Resolver();
+        for (ItemStack stack : stacks) {
+            resolver.add(Target.of(stack));
+        }
+        return resolver.build();
+    }
+
+    /**
+     * Resolves the pages of entities.
+     *
+     * @param entities The entities.
+     * @return The batch.
+     * @see Target#of(Entity)
+     */
+    public static WikiPageBatch fromEntities(Iterable<? extends Entity> entities) {
+        Resolver resolver = new Resolver();
+        for (Entity entity : entities) {
+            resolver.add(Target.of(entity));
+        }
+        return resolver.build();
+    }
+
+    /**
+     * Resolves the pages of registry entries.
+     *
+     * @param registryEntries      The registry entries.
+     * @param translationKeyPrefix The translation key prefix.
+     * @return The batch.
+     * @see Target#of(RegistryEntry, String)
+     */
+    public static WikiPageBatch fromRegistryEntries(Iterable<? extends RegistryEntry<?>> registryEntries,
+                                                    String translationKeyPrefix) {
+        Resolver resolver = new Resolver();
+        for (RegistryEntry<?> registryEntry : registryEntries) {
+            resolver.add(Target.of(registryEntry, translationKeyPrefix));
+        }
+        return resolver.build();
+    }
+
+    /**
+     * Resolves the pages of arbitrary targets.
+     *
+     * @param targets The targets. {@code null} elements are ignored.
+     * @return The batch.
+     */
+    public static WikiPageBatch fromTargets(Iterable<? extends Target> targets) {
+        Resolver resolver = new Resolver();
+        for (Target target : targets) {
+            resolver.add(target);
+        }
+        return resolver.build();
+    }
+
+    /**
+     * Gets the resolved page for a target.
+     *
+     * @param target The target.
+     * @return The page, or {@code null} if the target is not in the batch or has no wiki.
+     */
+    public @Nullable WikiPage get(Target target) {
+        Entry entry = this.targets.get(target);
+        return entry != null ? entry.page() : null;
+    }
+
+    /**
+     * Starts fetching the excerpt of every page in the batch so that they are cached before they are opened.
+     *
+     * @return The excerpt futures of pages whose wiki supports excerpts.
+     * @see PageExcerpt#fromPage(WikiPage)
+     */
+    public List<CompletableFuture<PageExcerpt>> prefetchExcerpts() {
+        return this.entries.stream()
+                           .map(entry -> PageExcerpt.fromPage(entry.page()))
+                           .flatMap(Optional::stream)
+                           .toList();
+    }
+
+    /**
+     * Starts fetching the excerpt and then the page image of the first pages in the batch, so that the link
+     * confirmation screen can show them at once. Images are queued behind every image that is visible.
+     *
+     * @param limit The maximum number of pages, so that a large container does not use up the rate limit of a wiki.
+     * @return The image futures of pages whose wiki supports excerpts. They complete with {@code null} if the page
+     * has no image.
+     * @see ImageLoader.Priority#PREFETCH
+     */
+    public List<CompletableFuture<byte[]>> prefetchImages(int limit) {
+        return this.entries.stream()
+                           .limit(limit)
+                           .map(entry -> PageExcerpt.fromPage(entry.page()))
+                           .flatMap(Optional::stream)
+                           .map(excerpt -> excerpt.thenCompose(
+                                   fetched -> fetched == null || fetched.imageUrl() == null
+                                           ? CompletableFuture.<byte[]>completedFuture(null)
+                                           : MOD.imageLoader().load(fetched.imageUrl(),
+                                                                    ImageLoader.Priority.PREFETCH)))
+                           .toList();
+    }
+
+    /**
+     * Represents a resolved page in a batch.
+     *
+     * @param page The page.
+     * @param url  The URL of the page.
+     */
+    public record Entry(WikiPage page, String url) {
+    }
+
+    private static class Resolver {
+        private final Map<Target, Optional<Entry>> resolved = new HashMap<>();
+        private final Map<WikiPage, Entry> pages = new LinkedHashMap<>();
+
+        private void add(@Nullable Target target) {
+            if (target == null) return;
+            this.resolved.computeIfAbsent(target, this::resolve);
+        }
+
+        private Optional<Entry> resolve(Target target) {
+            WikiPage page = WikiPage.fromTarget(target);
+            if (page == null) return Optional.empty();
+
+            return Optional.of(this.pages.computeIfAbsent(page, p -> new Entry(p, p.getUrl())));
+        }
+
+        private WikiPageBatch build() {
+            Map<Target, Entry> targets = new HashMap<>();
+            this.resolved.forEach((target, entry) -> entry.ifPresent(e -> targets.put(target, e)));
+
+            return new WikiPageBatch(List.copyOf(this.pages.values()), Collections.unmodifiableMap(targets));
+        }
+    }
+}
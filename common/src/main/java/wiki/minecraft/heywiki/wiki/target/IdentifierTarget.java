@@ -1,10 +1,13 @@
 package wiki.minecraft.heywiki.wiki.target;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.MapCodec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.resource.language.TranslationStorage;
+import net.minecraft.component.type.NbtComponent;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.Language;
 import wiki.minecraft.heywiki.HeyWikiClient;
@@ -33,11 +36,36 @@ public record IdentifierTarget(Identifier identifier, Optional<String> translati
                                                          .forGetter(target -> target.fallbackTitle))
 
                                      .apply(builder, IdentifierTarget::new));
+    /**
+     * Decoded custom data targets, including components that do not contain a target.
+     * Keys are compared by identity, which works because copies of an item stack share their components.
+     */
+    private static final Cache<NbtComponent, Optional<IdentifierTarget>> customDataCache =
+            CacheBuilder.newBuilder()
+                        .weakKeys()
+                        .maximumSize(1024)
+                        .build();
 
     public IdentifierTarget(Identifier identifier, String translationKey) {
         this(identifier, Optional.of(translationKey), Optional.empty());
     }
 
+    /**
+     * Decodes a target from the custom data of an item stack.
+     *
+     * @param customData The custom data component.
+     * @return The target, or an empty optional if the custom data does not contain a target.
+     */
+    public static Optional<IdentifierTarget> fromCustomData(NbtComponent customData) {
+        Optional<IdentifierTarget> target = customDataCache.getIfPresent(customData);
+        if (target == null) {
+            target = customData.get(CODEC).result();
+            customDataCache.put(customData, target);
+        }
+
+        return target;
+    }
+
     @Override public String namespace() {
         return identifier.getNamespace();
     }
@@ -0,0 +1,27 @@
+package wiki.minecraft.heywiki.wiki.target;
+
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+import wiki.minecraft.heywiki.resource.WikiLinkTableManager;
+import wiki.minecraft.heywiki.wiki.WikiPage;
+
+import java.net.URI;
+
+/**
+ * A target whose title, page and URI have already been resolved.
+ *
+ * <p>Precomputed targets are created by the {@link WikiLinkTableManager} at resource reload,
+ * so that resolving them to a {@link WikiPage} does not need any translation or string work.
+ *
+ * @param identifier     The identifier of the target.
+ * @param translationKey The translation key the title was resolved from.
+ * @param title          The resolved title.
+ * @param page           The resolved wiki page.
+ * @param uri            The resolved URI of the page.
+ */
+public record PrecomputedTarget(Identifier identifier, String translationKey, String title, WikiPage page,
+                                @Nullable URI uri) implements Target {
+    @Override public String namespace() {
+        return identifier.getNamespace();
+    }
+}
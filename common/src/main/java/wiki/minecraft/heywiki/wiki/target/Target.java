@@ -14,6 +14,8 @@ import net.minecraft.registry.Registries;
 import net.minecraft.registry.entry.RegistryEntry;
 import net.minecraft.util.Identifier;
 import org.jetbrains.annotations.Nullable;
+import wiki.minecraft.heywiki.HeyWikiClient;
+import wiki.minecraft.heywiki.resource.WikiLinkTableManager;
 import wiki.minecraft.heywiki.wiki.WikiPage;
 
 import static wiki.minecraft.heywiki.HeyWikiClient.experimentalWarning;
@@ -48,6 +50,8 @@ public interface Target {
      */
     static Target of(Block block) {
         if (block instanceof AirBlock) return null;
+        var precomputed = linkTable().get(Registries.BLOCK, block, block.getTranslationKey());
+        if (precomputed != null) return precomputed;
         return new IdentifierTarget(Registries.BLOCK.getId(block), block.getTranslationKey());
     }
 
@@ -71,6 +75,9 @@ public interface Target {
                 return Target.of(stack);
             }
             default -> {
+                var precomputed = linkTable().get(Registries.ENTITY_TYPE, entity.getType(),
+                                                  entity.getType().getTranslationKey());
+                if (precomputed != null) return precomputed;
                 return new IdentifierTarget(Registries.ENTITY_TYPE.getId(entity.getType()),
                                             entity.getType().getTranslationKey());
             }
@@ -89,13 +96,15 @@ public interface Target {
 
         @Nullable NbtComponent customData = stack.getComponents().get(DataComponentTypes.CUSTOM_DATA);
         if (customData != null) {
-            var target = customData.get(IdentifierTarget.CODEC).result().orElse(null);
+            var target = IdentifierTarget.fromCustomData(customData).orElse(null);
             if (target != null) {
                 experimentalWarning("Custom item based on custom_data or NBT");
                 return target;
             }
         }
 
+        var precomputed = linkTable().get(Registries.ITEM, stack.getItem(), stack.getTranslationKey());
+        if (precomputed != null) return precomputed;
         return new IdentifierTarget(Registries.ITEM.getId(stack.getItem()), stack.getTranslationKey());
     }
 
@@ -109,6 +118,8 @@ public interface Target {
         RegistryEntry<StatusEffect> effectEntry = effect.getEffectType();
         var key = effectEntry.getKey();
         if (key.isEmpty()) return null;
+        var precomputed = linkTable().get(Registries.STATUS_EFFECT, effectEntry.value(), effect.getTranslationKey());
+        if (precomputed != null) return precomputed;
         Identifier identifier = key.get().getValue();
 
         return new IdentifierTarget(identifier, effect.getTranslationKey());
@@ -127,8 +138,14 @@ public interface Target {
     static Target of(RegistryEntry<?> registryEntry, String translationKeyPrefix) {
         var key = registryEntry.getKey();
         if (key.isEmpty()) return null;
+        var precomputed = linkTable().get(registryEntry, translationKeyPrefix);
+        if (precomputed != null) return precomputed;
         Identifier identifier = key.get().getValue();
 
         return new IdentifierTarget(identifier, identifier.toTranslationKey(translationKeyPrefix));
     }
+
+    private static WikiLinkTableManager linkTable() {
+        return HeyWikiClient.getInstance().linkTableManager();
+    }
 }
@@ -0,0 +1,79 @@
+package wiki.minecraft.heywiki.gametest.wiki;
+
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.TestContext;
+import wiki.minecraft.heywiki.util.HttpUtil;
+import wiki.minecraft.heywiki.wiki.TitleFormat;
+import wiki.minecraft.heywiki.wiki.UrlTemplate;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class UrlTemplateTest {
+    private static final List<String> TITLES = List.of(
+            "Grass Block",
+            "Mooshroom (Brown)",
+            "A&B=C?D/E#F+G%H:I;J,K@L$M",
+            "~!'*._-",
+            "Blöcke und Gegenstände",
+            "方块",
+            "Emoji 😀 and 🐝",
+            "Unpaired \uD83D high",
+            "Unpaired \uDE00 low",
+            "Trailing \uD83D");
+    private static final List<TitleFormat> FORMATS = List.of(
+            TitleFormat.DEFAULT,
+            new TitleFormat(TitleFormat.Letter.LOWER, TitleFormat.Space.UNDERSCORE),
+            new TitleFormat(TitleFormat.Letter.UPPER, TitleFormat.Space.DASH),
+            new TitleFormat(TitleFormat.Letter.IGNORE, TitleFormat.Space.UNDERSCORE));
+    private static final List<String> TEMPLATES = List.of(
+            "https://minecraft.wiki/w/%s",
+            "https://minecraft.wiki/?search=%s&fulltext=1",
+            "https://example.org/100%%/%s",
+            "https://example.org/%1$s");
+
+    private static String urlEncoder(String string) {
+        return URLEncoder.encode(string, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    @GameTest(templateName = FabricGameTest.EMPTY_STRUCTURE)
+    public void encodesLikeUrlEncoder(TestContext context) {
+        for (String title : TITLES) {
+            context.assertEquals(HttpUtil.encodeUrl(title), urlEncoder(title),
+                                 "does not encode " + title + " like URLEncoder");
+        }
+        context.complete();
+    }
+
+    @GameTest(templateName = FabricGameTest.EMPTY_STRUCTURE)
+    public void encodesWithTitleFormat(TestContext context) {
+        for (TitleFormat format : FORMATS) {
+            for (String title : TITLES) {
+                StringBuilder builder = new StringBuilder();
+                HttpUtil.encodeUrl(builder, title, format::formatCodePoint);
+                context.assertEquals(builder.toString(), urlEncoder(format.formatTitle(title)),
+                                     "does not encode " + title + " with " + format + " like URLEncoder");
+            }
+        }
+        context.complete();
+    }
+
+    @GameTest(templateName = FabricGameTest.EMPTY_STRUCTURE)
+    public void expandsLikeFormatted(TestContext context) {
+        for (String template : TEMPLATES) {
+            UrlTemplate compiled = UrlTemplate.compile(template);
+            for (TitleFormat format : FORMATS) {
+                for (String title : TITLES) {
+                    context.assertEquals(compiled.expand(title, format),
+                                         template.formatted(HttpUtil.encodeUrl(format.formatTitle(title))),
+                                         "does not expand " + template + " with " + title + " like formatted");
+                }
+            }
+            context.assertEquals(compiled.expand("Grass Block"), template.formatted(urlEncoder("Grass Block")),
+                                 "does not expand " + template + " without a title format like formatted");
+        }
+        context.complete();
+    }
+}
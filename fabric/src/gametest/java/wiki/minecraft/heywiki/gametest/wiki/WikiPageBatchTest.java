@@ -0,0 +1,26 @@
+package wiki.minecraft.heywiki.gametest.wiki;
+
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.TestContext;
+import wiki.minecraft.heywiki.wiki.WikiPageBatch;
+import wiki.minecraft.heywiki.wiki.target.Target;
+
+import java.util.List;
+
+public class WikiPageBatchTest {
+    @GameTest(templateName = FabricGameTest.EMPTY_STRUCTURE)
+    public void deduplicatesStacks(TestContext context) {
+        var stacks = List.of(new ItemStack(Items.BONE, 3), new ItemStack(Items.BONE, 64), ItemStack.EMPTY,
+                             new ItemStack(Items.STONE), new ItemStack(Items.BONE));
+        var batch = WikiPageBatch.fromStacks(stacks);
+        context.assertEquals(batch.entries().size(), 2, "does not have the correct number of pages");
+        var page = batch.get(Target.of(new ItemStack(Items.BONE)));
+        context.assertTrue(page != null, "does not resolve the stack");
+        assert page != null;
+        context.assertEquals(page.pageName(), "Bone", "does not have the correct Title");
+        context.complete();
+    }
+}